@@ -0,0 +1,203 @@
+package org.entitypedia.games.common.client;
+
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ByteArrayEntity;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs a recorded workload through a client and measures throughput and latency. Recorded requests are sent
+ * in order, starting over when the workload is exhausted, by a number of threads, to the api endpoint of the
+ * client, usually a {@link ReplayServer}. Requests go through the usual call path of the client, so its
+ * configuration and overrides, like signing, retries and circuit breakers, are exercised and accounted in
+ * its metrics. Response bodies are not decoded. The driver is in the package of the client for access to that
+ * call path.
+ * <pre>
+ * try (ReplayServer server = new ReplayServer(recording)) {
+ *     server.start();
+ *     client.setApiEndpoint(server.getUrl());
+ *     LoadDriver driver = new LoadDriver(client, TrafficRecorder.load(recording));
+ *     driver.setConcurrency(16);
+ *     driver.setRequests(100000);
+ *     LoadReport report = driver.run();
+ * }
+ * </pre>
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class LoadDriver {
+
+    private final GamesCommonClient client;
+    private final List<RecordedExchange> workload;
+
+    private int concurrency = 1;
+    private long requests;
+    private long warmupRequests;
+    private long duration = -1;
+    private volatile boolean stop;
+
+    /**
+     * Creates a driver which sends each recorded request once, from one thread.
+     *
+     * @param client   client to send requests through
+     * @param workload recorded exchanges to send requests of
+     */
+    public LoadDriver(GamesCommonClient client, List<RecordedExchange> workload) {
+        if (workload.isEmpty()) {
+            throw new IllegalArgumentException("Workload should have at least one request");
+        }
+        this.client = client;
+        this.workload = new ArrayList<>(workload);
+        this.requests = workload.size();
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Sets the number of threads sending requests.
+     *
+     * @param concurrency number of threads
+     */
+    public void setConcurrency(int concurrency) {
+        if (0 >= concurrency) {
+            throw new IllegalArgumentException("Concurrency should be positive: " + concurrency);
+        }
+        this.concurrency = concurrency;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Sets the number of requests to send, by default the size of the workload.
+     *
+     * @param requests number of requests
+     */
+    public void setRequests(long requests) {
+        this.requests = requests;
+    }
+
+    public long getWarmupRequests() {
+        return warmupRequests;
+    }
+
+    /**
+     * Sets the number of requests sent before measuring, to warm up connections and code.
+     *
+     * @param warmupRequests number of warm up requests
+     */
+    public void setWarmupRequests(long warmupRequests) {
+        this.warmupRequests = warmupRequests;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Sets the time limit of the measured run. The run stops when the requests are sent or the time passes,
+     * whichever comes first.
+     *
+     * @param duration time limit in milliseconds, -1 for none
+     */
+    public void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * Runs the workload: warm up requests, then the measured ones.
+     *
+     * @return results of the measured run
+     * @throws InterruptedException if interrupted while waiting for the run to complete
+     */
+    public LoadReport run() throws InterruptedException {
+        if (0 < warmupRequests) {
+            drive(warmupRequests, -1);
+        }
+        return drive(requests, duration);
+    }
+
+    private LoadReport drive(final long count, long duration) throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final AtomicLong next = new AtomicLong();
+        stop = false;
+        final long deadline = 0 <= duration ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(duration) : Long.MAX_VALUE;
+        Runnable worker = () -> {
+            long i;
+            while (!stop && (i = next.getAndIncrement()) < count && System.nanoTime() < deadline) {
+                RecordedExchange exchange = workload.get((int) (i % workload.size()));
+                long start = System.nanoTime();
+                try {
+                    client.execute(createRequest(exchange), null);
+                } catch (RuntimeException e) {
+                    errors.increment();
+                }
+                histogram.record(System.nanoTime() - start);
+            }
+        };
+
+        Thread[] threads = new Thread[concurrency];
+        long start = System.nanoTime();
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(worker, "load-driver-" + (i + 1));
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            stop = true;
+            throw e;
+        }
+        return new LoadReport(histogram.getCount(), errors.sum(), System.nanoTime() - start, histogram.getStats());
+    }
+
+    /**
+     * Creates the request of a recorded exchange, with the recorded body.
+     *
+     * @param exchange recorded exchange
+     * @return request to the api endpoint of the client
+     */
+    protected HttpRequestBase createRequest(RecordedExchange exchange) {
+        String url = client.getApiEndpoint() + exchange.getUrl();
+        final String method = exchange.getMethod();
+        if (HttpGet.METHOD_NAME.equals(method)) {
+            return new HttpGet(url);
+        }
+        HttpEntityEnclosingRequestBase request;
+        if (HttpPost.METHOD_NAME.equals(method)) {
+            request = new HttpPost(url);
+        } else {
+            request = new HttpEntityEnclosingRequestBase() {
+                @Override
+                public String getMethod() {
+                    return method;
+                }
+            };
+            request.setURI(URI.create(url));
+        }
+        if (null != exchange.getRequestContentType()) {
+            request.addHeader("Content-Type", exchange.getRequestContentType());
+        }
+        if (null != exchange.getRequestBody()) {
+            ByteArrayEntity entity = new ByteArrayEntity(exchange.getRequestBody());
+            entity.setContentEncoding(exchange.getRequestContentEncoding());
+            request.setEntity(entity);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,67 @@
+package org.entitypedia.games.common.client;
+
+/**
+ * Results of a {@link LoadDriver} run.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class LoadReport {
+
+    private final long requests;
+    private final long errors;
+    private final long elapsed;
+    private final LatencyStats latency;
+
+    public LoadReport(long requests, long errors, long elapsed, LatencyStats latency) {
+        this.requests = requests;
+        this.errors = errors;
+        this.elapsed = elapsed;
+        this.latency = latency;
+    }
+
+    /**
+     * Returns number of requests sent.
+     * @return number of requests
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Returns number of requests which failed with an exception, including error responses.
+     * @return number of failed requests
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Returns duration of the run.
+     * @return duration in nanoseconds
+     */
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Returns number of requests completed per second.
+     * @return throughput in requests per second
+     */
+    public double getThroughput() {
+        return 0 < elapsed ? requests * 1e9 / elapsed : 0;
+    }
+
+    /**
+     * Returns latencies of the requests, failed ones included.
+     * @return latency statistics
+     */
+    public LatencyStats getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return "requests: " + requests + ", errors: " + errors + ", throughput: " + String.format("%.1f", getThroughput())
+                + "/s, latency " + latency;
+    }
+}
@@ -0,0 +1,340 @@
+package org.entitypedia.games.common.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.bootstrap.HttpServer;
+import org.apache.http.impl.bootstrap.ServerBootstrap;
+import org.apache.http.util.EntityUtils;
+import org.entitypedia.games.common.exceptions.GameException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local HTTP server which replays recorded responses, standing in for the game server in load and regression
+ * tests. A request is answered with a response recorded for the same method and url, relative to the server
+ * root; responses recorded for the same request are replayed in turn, starting over when exhausted. Requests
+ * without a recorded response are answered with 404 and error details, as the game server does. Point a client
+ * at the server with <code>setApiEndpoint(server.getUrl())</code>.
+ * <p>
+ * Responses may be delayed, by a fixed latency, a random jitter and a share of the recorded latency, and
+ * replaced with errors at a given rate. The number of requests served at once may be limited, further requests
+ * wait, like on a server with a bounded worker pool.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ReplayServer implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayServer.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Map<String, Responses> responses = new HashMap<>();
+
+    private int port;
+    private int concurrency;
+    private volatile long latency;
+    private volatile long jitter;
+    private volatile double latencyScale;
+    private volatile double errorRate;
+    private volatile int errorStatus = 503;
+
+    private HttpServer server;
+    private Semaphore permits;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a server replaying the exchanges. The server is started by {@link #start}.
+     *
+     * @param exchanges recorded exchanges
+     */
+    public ReplayServer(Collection<RecordedExchange> exchanges) {
+        Map<String, List<RecordedExchange>> byRequest = new HashMap<>();
+        for (RecordedExchange exchange : exchanges) {
+            byRequest.computeIfAbsent(getKey(exchange.getMethod(), exchange.getUrl()), k -> new ArrayList<>()).add(exchange);
+        }
+        for (Map.Entry<String, List<RecordedExchange>> e : byRequest.entrySet()) {
+            responses.put(e.getKey(), new Responses(e.getValue()));
+        }
+    }
+
+    /**
+     * Creates a server replaying the recording. The server is started by {@link #start}.
+     *
+     * @param recording recording file
+     * @throws IOException if the recording cannot be loaded
+     */
+    public ReplayServer(Path recording) throws IOException {
+        this(TrafficRecorder.load(recording));
+    }
+
+    /**
+     * Starts the server on the loopback interface.
+     *
+     * @throws IOException if the server cannot be started
+     */
+    public synchronized void start() throws IOException {
+        if (null != server) {
+            throw new IllegalStateException("Replay server is already started");
+        }
+        permits = 0 < concurrency ? new Semaphore(concurrency, true) : null;
+        HttpServer result = ServerBootstrap.bootstrap()
+                .setLocalAddress(InetAddress.getLoopbackAddress())
+                .setListenerPort(port)
+                .setServerInfo("ReplayServer")
+                .setSocketConfig(SocketConfig.custom().setTcpNoDelay(true).build())
+                .registerHandler("*", (request, response, context) -> handle(request, response))
+                .create();
+        result.start();
+        server = result;
+    }
+
+    /**
+     * Returns the url of the server, ending with a slash.
+     *
+     * @return server url
+     */
+    public synchronized String getUrl() {
+        if (null == server) {
+            throw new IllegalStateException("Replay server is not started");
+        }
+        return "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getLocalPort() + "/";
+    }
+
+    public synchronized int getPort() {
+        return port;
+    }
+
+    /**
+     * Sets the port to listen on, used by {@link #start}.
+     *
+     * @param port port, 0 for any free port
+     */
+    public synchronized void setPort(int port) {
+        this.port = port;
+    }
+
+    public synchronized int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Sets the number of requests served at once, used by {@link #start}.
+     *
+     * @param concurrency number of requests served at once, 0 for unlimited
+     */
+    public synchronized void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public long getLatency() {
+        return latency;
+    }
+
+    /**
+     * Sets the fixed delay added to each response.
+     *
+     * @param latency delay in milliseconds
+     */
+    public void setLatency(long latency) {
+        this.latency = latency;
+    }
+
+    public long getJitter() {
+        return jitter;
+    }
+
+    /**
+     * Sets the maximum random delay added to each response.
+     *
+     * @param jitter maximum delay in milliseconds
+     */
+    public void setJitter(long jitter) {
+        this.jitter = jitter;
+    }
+
+    public double getLatencyScale() {
+        return latencyScale;
+    }
+
+    /**
+     * Sets the share of the recorded latency each response is delayed by: 1 replays recorded latencies,
+     * 0 ignores them.
+     *
+     * @param latencyScale multiplier of recorded latencies
+     */
+    public void setLatencyScale(double latencyScale) {
+        this.latencyScale = latencyScale;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * Sets the share of requests answered with the error status instead of the recorded response.
+     *
+     * @param errorRate share of errors, from 0 to 1
+     */
+    public void setErrorRate(double errorRate) {
+        if (0 > errorRate || 1 < errorRate) {
+            throw new IllegalArgumentException("Error rate should be between 0 and 1: " + errorRate);
+        }
+        this.errorRate = errorRate;
+    }
+
+    public int getErrorStatus() {
+        return errorStatus;
+    }
+
+    /**
+     * Sets the status of injected errors, 503 by default.
+     *
+     * @param errorStatus error status
+     */
+    public void setErrorStatus(int errorStatus) {
+        this.errorStatus = errorStatus;
+    }
+
+    /**
+     * Returns number of requests received.
+     * @return number of requests
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Returns number of injected errors.
+     * @return number of injected errors
+     */
+    public long getErrorCount() {
+        return errors.get();
+    }
+
+    /**
+     * Returns number of requests without a recorded response.
+     * @return number of unmatched requests
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (null != server) {
+            server.shutdown(1, TimeUnit.SECONDS);
+            server = null;
+        }
+    }
+
+    private void handle(HttpRequest request, HttpResponse response) throws IOException {
+        if (request instanceof HttpEntityEnclosingRequest) {
+            EntityUtils.consume(((HttpEntityEnclosingRequest) request).getEntity());
+        }
+        requests.incrementAndGet();
+        Semaphore semaphore = permits;
+        if (null != semaphore) {
+            try {
+                semaphore.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                response.setStatusCode(503);
+                return;
+            }
+        }
+        try {
+            String uri = request.getRequestLine().getUri();
+            String url = uri.startsWith("/") ? uri.substring(1) : uri;
+            String method = request.getRequestLine().getMethod();
+            Responses recorded = responses.get(getKey(method, url));
+            RecordedExchange exchange = null == recorded ? null : recorded.next();
+            delay(null == exchange ? 0 : exchange.getLatency());
+
+            if (0 < errorRate && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                errors.incrementAndGet();
+                setError(response, errorStatus, "Injected error");
+            } else if (null == exchange) {
+                misses.incrementAndGet();
+                log.debug("No recorded response for " + method + " " + url);
+                setError(response, 404, "No recorded response for " + method + " " + url);
+            } else {
+                response.setStatusCode(exchange.getStatus());
+                ByteArrayEntity entity = new ByteArrayEntity(exchange.getResponseBody());
+                entity.setContentType(exchange.getResponseContentType());
+                response.setEntity(entity);
+            }
+        } finally {
+            if (null != semaphore) {
+                semaphore.release();
+            }
+        }
+    }
+
+    private static void setError(HttpResponse response, int status, String message) throws IOException {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("exceptionClass", GameException.class.getName());
+        details.put("errorMessage", message);
+        response.setStatusCode(status);
+        response.setEntity(new ByteArrayEntity(MAPPER.writeValueAsBytes(details), ContentType.APPLICATION_JSON));
+    }
+
+    private void delay(long recordedLatency) {
+        long nanos = (long) (recordedLatency * latencyScale) + TimeUnit.MILLISECONDS.toNanos(latency);
+        long maxJitter = jitter;
+        if (0 < maxJitter) {
+            nanos += TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextLong(maxJitter + 1));
+        }
+        if (0 < nanos) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static String getKey(String method, String url) {
+        return method + " " + url;
+    }
+
+    /**
+     * Responses recorded for the same request, replayed in turn.
+     */
+    private static final class Responses {
+
+        private final RecordedExchange[] exchanges;
+        private final AtomicInteger next = new AtomicInteger();
+
+        private Responses(List<RecordedExchange> exchanges) {
+            this.exchanges = exchanges.toArray(new RecordedExchange[exchanges.size()]);
+        }
+
+        private RecordedExchange next() {
+            return exchanges[(next.getAndIncrement() & Integer.MAX_VALUE) % exchanges.length];
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.entitypedia.games.common.client.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.entitypedia.games.common.client.ExceptionRegistry;
+import org.entitypedia.games.common.client.GamesCommonClient;
+import org.entitypedia.games.common.exceptions.GameException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Client exposing the protected hot paths of {@link GamesCommonClient} to benchmarks.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class BenchmarkClient extends GamesCommonClient {
+
+    public BenchmarkClient(String apiEndpoint) {
+        super(apiEndpoint, "benchmark-key", "benchmark-secret", "benchmark-token", "benchmark-token-secret");
+    }
+
+    public String encode(String string) throws GameException {
+        return encodeURL(string);
+    }
+
+    public <T> T get(String url, TypeReference<T> type) throws GameException {
+        return doSimpleGet(url, type);
+    }
+
+    public <T> T postRead(String url, Object object, TypeReference<T> type) throws GameException {
+        return doPostReadObject(url, object, type);
+    }
+
+    public static RuntimeException mapError(InputStream errorStream, ObjectReader detailsReader) throws IOException {
+        return processError(errorStream, detailsReader);
+    }
+
+    public static ExceptionRegistry exceptions() {
+        return getExceptionRegistry();
+    }
+}
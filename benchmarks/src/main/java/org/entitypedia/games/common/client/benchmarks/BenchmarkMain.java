@@ -0,0 +1,37 @@
+package org.entitypedia.games.common.client.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Runs benchmarks with the usual JMH command line, writing results to jmh-result.json
+ * unless another result format or file is requested.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp() || options.shouldList() || options.shouldListProfilers()
+                || options.shouldListResultFormats() || options.shouldListWithParams()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+        if (!options.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!options.getResult().hasValue()) {
+            builder.result("jmh-result.json");
+        }
+        new Runner(builder.build()).run();
+    }
+}
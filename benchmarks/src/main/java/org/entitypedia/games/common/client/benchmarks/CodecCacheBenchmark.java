@@ -0,0 +1,98 @@
+package org.entitypedia.games.common.client.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.entitypedia.games.common.client.ObjectCodecCache;
+import org.entitypedia.games.common.exceptions.ExceptionDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding through the mapper on each call versus through readers cached by {@link ObjectCodecCache},
+ * with and without Afterburner, which is what {@code enableFastDatabind} registers.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CodecCacheBenchmark {
+
+    private static final TypeReference<List<ExceptionDetails>> DETAILS_TYPE = Payloads.EXCEPTION_DETAILS_TYPE;
+    private static final TypeReference<Integer> INTEGER_TYPE = new TypeReference<Integer>() {
+    };
+
+    @Param({"1", "20"})
+    private int size;
+
+    private ObjectMapper mapper;
+    private ObjectReader cachedReader;
+    private ObjectReader afterburnerReader;
+    private ObjectReader cachedIntegerReader;
+    private byte[] details;
+    private byte[] integer;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = new ObjectMapper();
+        ObjectCodecCache codecs = new ObjectCodecCache(mapper);
+        cachedReader = codecs.reader(DETAILS_TYPE);
+        cachedIntegerReader = codecs.reader(INTEGER_TYPE);
+
+        BenchmarkClient fast = new BenchmarkClient("http://localhost:9080/game/webapi/");
+        fast.enableFastDatabind();
+        afterburnerReader = fast.getObjectCodecs().reader(DETAILS_TYPE);
+        fast.close();
+
+        details = Payloads.exceptionDetails(size);
+        integer = "1234567".getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<ExceptionDetails> mapperReadValue() throws IOException {
+        return mapper.readValue(details, DETAILS_TYPE);
+    }
+
+    @Benchmark
+    public List<ExceptionDetails> readerPerCall() throws IOException {
+        return mapper.readerFor(DETAILS_TYPE).readValue(details);
+    }
+
+    @Benchmark
+    public List<ExceptionDetails> cachedReader() throws IOException {
+        return cachedReader.readValue(details);
+    }
+
+    @Benchmark
+    public List<ExceptionDetails> cachedAfterburnerReader() throws IOException {
+        return afterburnerReader.readValue(details);
+    }
+
+    @Benchmark
+    public Integer mapperReadInteger() throws IOException {
+        return mapper.readValue(integer, INTEGER_TYPE);
+    }
+
+    @Benchmark
+    public Integer cachedReadInteger() throws IOException {
+        return cachedIntegerReader.readValue(integer);
+    }
+}
@@ -0,0 +1,95 @@
+package org.entitypedia.games.common.client.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.entitypedia.games.common.client.WireFormat;
+import org.entitypedia.games.common.exceptions.ExceptionDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of payloads with the client codecs, in JSON and Smile: lists of error details, as
+ * a list response, and a single error details object, as an error response.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({"JSON", "SMILE"})
+    private WireFormat format;
+
+    @Param({"1", "100"})
+    private int items;
+
+    private BenchmarkClient client;
+    private List<ExceptionDetails> payload;
+    private byte[] encoded;
+    private ExceptionDetails details;
+    private byte[] encodedDetails;
+
+    private ObjectWriter itemsWriter;
+    private ObjectReader itemsReader;
+    private ObjectWriter detailsWriter;
+    private ObjectReader detailsReader;
+
+    @Setup
+    public void setUp() throws IOException {
+        client = new BenchmarkClient("http://localhost:9080/game/webapi/");
+        payload = Payloads.exceptionDetailsList(items);
+        details = client.getObjectCodecs().reader(ExceptionDetails.class).readValue(
+                "{\"exceptionClass\":\"org.entitypedia.games.common.exceptions.GameException\","
+                        + "\"errorMessage\":\"Something went wrong while processing the request\"}");
+
+        itemsWriter = client.getObjectCodecs(format).writerFor(payload);
+        itemsReader = client.getObjectCodecs(format).reader(Payloads.EXCEPTION_DETAILS_TYPE);
+        detailsWriter = client.getObjectCodecs(format).writer(ExceptionDetails.class);
+        detailsReader = client.getObjectCodecs(format).reader(ExceptionDetails.class);
+        encoded = itemsWriter.writeValueAsBytes(payload);
+        encodedDetails = detailsWriter.writeValueAsBytes(details);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+    }
+
+    @Benchmark
+    public byte[] encodeItems() throws IOException {
+        return itemsWriter.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public List<ExceptionDetails> decodeItems() throws IOException {
+        return itemsReader.readValue(encoded);
+    }
+
+    @Benchmark
+    public byte[] encodeDetails() throws IOException {
+        return detailsWriter.writeValueAsBytes(details);
+    }
+
+    @Benchmark
+    public ExceptionDetails decodeDetails() throws IOException {
+        return detailsReader.readValue(encodedDetails);
+    }
+}
@@ -0,0 +1,55 @@
+package org.entitypedia.games.common.client.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.entitypedia.games.common.exceptions.ExceptionDetails;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Payloads of the types this client exchanges with the game server. Entities of particular games live in
+ * their own client modules, error details are the model type every game shares.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public final class Payloads {
+
+    public static final TypeReference<List<ExceptionDetails>> EXCEPTION_DETAILS_TYPE = new TypeReference<List<ExceptionDetails>>() {
+    };
+
+    private Payloads() {
+    }
+
+    /**
+     * Returns a list of error details, as decoded from {@link #exceptionDetails(int)}.
+     *
+     * @param count number of details
+     * @return list of details
+     * @throws IOException if the details cannot be decoded
+     */
+    public static List<ExceptionDetails> exceptionDetailsList(int count) throws IOException {
+        return new ObjectMapper().readValue(exceptionDetails(count), EXCEPTION_DETAILS_TYPE);
+    }
+
+    /**
+     * Returns a JSON list of error details, as returned by the server for failed calls in a batch.
+     *
+     * @param count number of details
+     * @return encoded list
+     */
+    public static byte[] exceptionDetails(int count) {
+        StringBuilder result = new StringBuilder(count * 200).append('[');
+        for (int i = 0; i < count; i++) {
+            if (0 < i) {
+                result.append(',');
+            }
+            result.append("{\"exceptionClass\":\"org.entitypedia.games.common.exceptions.GameException\",")
+                    .append("\"errorMessage\":\"Word ").append(1000000 + i)
+                    .append(" cannot be used in crossword: \\\"quoted\\\" & more\",")
+                    .append("\"params\":[").append(1000000 + i).append(",\"clue ").append(i).append("\",").append(0 == i % 2).append("]}");
+        }
+        return result.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,110 @@
+package org.entitypedia.games.common.client.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.entitypedia.games.common.client.ExceptionRegistry;
+import org.entitypedia.games.common.exceptions.ExceptionDetails;
+import org.entitypedia.games.common.exceptions.GameException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of error responses to exceptions: a known exception class, the games exception,
+ * and a class missing on the client. Compares the exception registry with per-call reflection
+ * it replaced.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessErrorBenchmark {
+
+    @Param({
+            "java.lang.IllegalStateException",
+            "org.entitypedia.games.common.exceptions.GameException",
+            "org.entitypedia.games.common.exceptions.MissingOnClientException"
+    })
+    private String exceptionClass;
+
+    private byte[] body;
+    private ObjectReader detailsReader;
+    private ExceptionDetails details;
+    private ExceptionRegistry registry;
+
+    @Setup
+    public void setUp() throws IOException {
+        body = ("{\"exceptionClass\":\"" + exceptionClass + "\",\"errorMessage\":\"Something went wrong\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        detailsReader = new ObjectMapper().readerFor(ExceptionDetails.class);
+        details = detailsReader.readValue(body);
+        registry = BenchmarkClient.exceptions();
+    }
+
+    /**
+     * Whole error path: decoding details and mapping them.
+     */
+    @Benchmark
+    public RuntimeException processError() throws IOException {
+        return BenchmarkClient.mapError(new ByteArrayInputStream(body), detailsReader);
+    }
+
+    @Benchmark
+    public RuntimeException registry() {
+        return registry.create(details);
+    }
+
+    @Benchmark
+    public RuntimeException reflection() {
+        return reflect(details);
+    }
+
+    /**
+     * Lookups processError did on every call before the registry.
+     */
+    @SuppressWarnings("unchecked")
+    private static RuntimeException reflect(ExceptionDetails details) {
+        Class clazz = GameException.class;
+        try {
+            clazz = Class.forName(details.getExceptionClass());
+        } catch (ClassNotFoundException e) {
+            // mapped as games exception
+        }
+        try {
+            if (GameException.class.isAssignableFrom(clazz)) {
+                Constructor<? extends GameException> constructor;
+                try {
+                    constructor = clazz.getConstructor(Object[].class);
+                    Object arg = details.getParams();
+                    return constructor.newInstance(arg);
+                } catch (NoSuchMethodException e) {
+                    constructor = clazz.getConstructor(String.class);
+                    return constructor.newInstance(details.getErrorMessage());
+                }
+            }
+            Constructor<? extends RuntimeException> constructor = clazz.getConstructor(String.class);
+            return constructor.newInstance(details.getErrorMessage());
+        } catch (NoSuchMethodException | InstantiationException | InvocationTargetException | IllegalAccessException e) {
+            throw new GameException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.entitypedia.games.common.client.benchmarks;
+
+import org.entitypedia.games.common.exceptions.ExceptionDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full calls against an in-process HTTP stub: signing, connection pool, HTTP and decoding.
+ * Run with several threads (-t) to measure the client under concurrency.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoundTripBenchmark {
+
+    @Param({"1", "100"})
+    private int items;
+
+    private StubServer server;
+    private BenchmarkClient client;
+    private List<ExceptionDetails> payload;
+    private String itemsUrl;
+    private String echoUrl;
+
+    @Setup
+    public void setUp() throws IOException {
+        payload = Payloads.exceptionDetailsList(items);
+        byte[] body = Payloads.exceptionDetails(items);
+        server = new StubServer(body, "{\"exceptionClass\":\"java.lang.IllegalStateException\",\"errorMessage\":\"error\"}".getBytes("UTF-8"));
+        client = new BenchmarkClient(server.getUrl());
+        itemsUrl = server.getUrl() + "items";
+        echoUrl = server.getUrl() + "echo";
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public List<ExceptionDetails> doSimpleGet() {
+        return client.get(itemsUrl, Payloads.EXCEPTION_DETAILS_TYPE);
+    }
+
+    @Benchmark
+    public List<ExceptionDetails> doPostReadObject() {
+        return client.postRead(echoUrl, payload, Payloads.EXCEPTION_DETAILS_TYPE);
+    }
+}
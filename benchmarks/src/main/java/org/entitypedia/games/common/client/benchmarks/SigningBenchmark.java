@@ -0,0 +1,59 @@
+package org.entitypedia.games.common.client.benchmarks;
+
+import oauth.signpost.commonshttp.CommonsHttpOAuthConsumer;
+import oauth.signpost.exception.OAuthException;
+import org.apache.http.client.methods.HttpGet;
+import org.entitypedia.games.common.client.OAuthRequestSigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OAuth request signing: the client signer and signpost consumer it replaced, for reference.
+ * Run with several threads (-t) to see contention on the consumer.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SigningBenchmark {
+
+    private static final String URL = "http://localhost:9080/game/webapi/words/search?pageSize=100&pageNo=3&filter=name%3Aabc";
+
+    private CommonsHttpOAuthConsumer consumer;
+    private OAuthRequestSigner signer;
+
+    @Setup
+    public void setUp() {
+        consumer = new CommonsHttpOAuthConsumer("benchmark-key", "benchmark-secret");
+        consumer.setTokenWithSecret("benchmark-token", "benchmark-token-secret");
+        signer = new OAuthRequestSigner(consumer);
+    }
+
+    @Benchmark
+    public HttpGet signer() throws OAuthException {
+        HttpGet request = new HttpGet(URL);
+        signer.sign(request);
+        return request;
+    }
+
+    @Benchmark
+    public HttpGet signpost() throws OAuthException {
+        HttpGet request = new HttpGet(URL);
+        consumer.sign(request);
+        return request;
+    }
+}
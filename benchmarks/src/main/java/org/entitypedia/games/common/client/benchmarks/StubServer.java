@@ -0,0 +1,74 @@
+package org.entitypedia.games.common.client.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process HTTP stub: GET /items returns a fixed body, POST /echo returns the request body,
+ * GET /error returns 400 with a fixed error body.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class StubServer implements AutoCloseable {
+
+    static {
+        // the stub writes headers and body separately, without this Nagle delays the body
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public StubServer(final byte[] items, final byte[] error) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 128);
+        server.createContext("/items", exchange -> respond(exchange, 200, items));
+        server.createContext("/echo", exchange -> respond(exchange, 200, read(exchange.getRequestBody())));
+        server.createContext("/error", exchange -> respond(exchange, 400, error));
+        executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Returns the base url of the stub, ending with a slash.
+     *
+     * @return base url
+     */
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        read(exchange.getRequestBody());
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while (-1 != (count = in.read(buffer))) {
+            result.write(buffer, 0, count);
+        }
+        return result.toByteArray();
+    }
+}
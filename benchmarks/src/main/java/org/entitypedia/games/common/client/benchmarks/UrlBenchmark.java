@@ -0,0 +1,84 @@
+package org.entitypedia.games.common.client.benchmarks;
+
+import org.entitypedia.games.common.client.EndpointTemplate;
+import org.entitypedia.games.common.client.GamesCommonClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * URL building and encoding.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlBenchmark {
+
+    private static final String API_ENDPOINT = "http://localhost:9080/game/webapi/";
+    private static final String URL = API_ENDPOINT + "words/search";
+    private static final EndpointTemplate SEARCH = EndpointTemplate.compile("words/search");
+    private static final EndpointTemplate WORD_CLUES = EndpointTemplate.compile("words/{wordId}/clues");
+
+    private BenchmarkClient client;
+
+    @Setup
+    public void setUp() {
+        client = new BenchmarkClient(API_ENDPOINT);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+    }
+
+    @Benchmark
+    public String addPageSizeAndNoAndFilterAndOrder() {
+        return GamesCommonClient.addPageSizeAndNoAndFilterAndOrder(URL, 100, 3, "name:abc", "name");
+    }
+
+    @Benchmark
+    public String addPageSizeAndNo() {
+        return GamesCommonClient.addPageSizeAndNo(URL, 100, 3);
+    }
+
+    @Benchmark
+    public String templateWithQuery() {
+        return SEARCH.expand(API_ENDPOINT).page(100, 3).param("filter", "name:abc").param("order", "name").toString();
+    }
+
+    @Benchmark
+    public String templateWithPlaceholder() {
+        return WORD_CLUES.expand(API_ENDPOINT, 123456L).page(100, 3).toString();
+    }
+
+    @Benchmark
+    public String encodeAscii() {
+        return client.encode("crossword");
+    }
+
+    @Benchmark
+    public String encodeReserved() {
+        return client.encode("what is 2 + 2? a&b=c/d");
+    }
+
+    @Benchmark
+    public String encodeUnicode() {
+        return client.encode("Beyonc\u00e9 Knowles\u2013Carter");
+    }
+}
@@ -0,0 +1,135 @@
+package org.entitypedia.games.common.client;
+
+import org.apache.http.client.methods.HttpRequestBase;
+import org.entitypedia.games.common.exceptions.GameException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Executes a batch of calls with a bounded number of workers, each taking the next call from the batch
+ * until none are left. When the deadline passes, calls which have not started are not started, and
+ * calls in flight are aborted; both get a failure result.
+ * <p>
+ * GETs with a response type go through {@link GamesCommonClient#doSimpleGet}, so they use the response cache
+ * and request coalescing like single calls. Workers run under the batch {@link Deadline}, which aborts them,
+ * or under the deadline of the calling thread if it is earlier.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class BatchExecution<T> {
+
+    private final GamesCommonClient client;
+    private final List<BatchRequest<? extends T>> requests;
+
+    private final AtomicReferenceArray<BatchResult<T>> results;
+    private final AtomicReferenceArray<HttpRequestBase> inFlight;
+    private final AtomicInteger next = new AtomicInteger();
+    private final CountDownLatch done;
+    private volatile boolean cancelled;
+
+    BatchExecution(GamesCommonClient client, List<BatchRequest<? extends T>> requests) {
+        this.client = client;
+        this.requests = requests;
+        this.results = new AtomicReferenceArray<>(requests.size());
+        this.inFlight = new AtomicReferenceArray<>(requests.size());
+        this.done = new CountDownLatch(requests.size());
+    }
+
+    /**
+     * Executes the batch and waits for all results or the deadline.
+     *
+     * @param executor    executor to run workers on
+     * @param concurrency maximum number of calls in flight
+     * @param timeout     deadline for the whole batch in milliseconds, zero or less for no deadline
+     * @return results in the order of requests
+     */
+    List<BatchResult<T>> execute(Executor executor, int concurrency, long timeout) {
+        int workers = Math.min(Math.max(1, concurrency), requests.size());
+        final Deadline deadline = Deadline.earlier(Deadline.current(),
+                0 < timeout ? Deadline.after(timeout, TimeUnit.MILLISECONDS) : null);
+        try {
+            for (int i = 0; i < workers; i++) {
+                executor.execute(() -> work(deadline));
+            }
+        } catch (RejectedExecutionException e) {
+            cancel("Batch rejected by executor: " + e.getMessage());
+        }
+
+        try {
+            if (null != deadline) {
+                if (!done.await(deadline.getRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS)) {
+                    cancel(0 < timeout ? "Batch deadline of " + timeout + " ms exceeded" : "Deadline exceeded");
+                }
+            } else {
+                done.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel("Interrupted while waiting for batch");
+        }
+
+        List<BatchResult<T>> result = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            result.add(results.get(i));
+        }
+        return result;
+    }
+
+    private void work(Deadline deadline) {
+        Deadline.Scope scope = null == deadline ? null : deadline.enter();
+        try {
+            int i;
+            while (!cancelled && (i = next.getAndIncrement()) < requests.size()) {
+                complete(i, execute(i, requests.get(i)));
+            }
+        } finally {
+            if (null != scope) {
+                scope.close();
+            }
+        }
+    }
+
+    private BatchResult<T> execute(int i, BatchRequest<? extends T> request) {
+        try {
+            if (BatchRequest.Method.GET == request.getMethod() && null != request.getType()) {
+                return BatchResult.success(client.doSimpleGet(request.getUrl(), request.getType()));
+            }
+            HttpRequestBase httpRequest = client.createRequest(request);
+            inFlight.set(i, httpRequest);
+            if (cancelled) {
+                httpRequest.abort();
+            }
+            return BatchResult.success(client.execute(httpRequest, request.getType()));
+        } catch (GameException e) {
+            return BatchResult.failure(e);
+        } catch (RuntimeException e) {
+            return BatchResult.failure(new GameException(e.getMessage(), e));
+        } finally {
+            inFlight.set(i, null);
+        }
+    }
+
+    private void cancel(String message) {
+        cancelled = true;
+        for (int i = 0; i < requests.size(); i++) {
+            complete(i, BatchResult.<T>failure(new GameException(message + ": " + requests.get(i))));
+            HttpRequestBase request = inFlight.get(i);
+            if (null != request) {
+                request.abort();
+            }
+        }
+    }
+
+    private void complete(int i, BatchResult<T> result) {
+        if (results.compareAndSet(i, null, result)) {
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.entitypedia.games.common.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+/**
+ * Descriptor of a call executed as a part of a batch: method, url, optional body and type of the response.
+ *
+ * @param <T> type of the response object
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class BatchRequest<T> {
+
+    public enum Method {
+        GET, POST
+    }
+
+    private final Method method;
+    private final String url;
+    private final Object body;
+    private final TypeReference<T> type;
+
+    /**
+     * Creates a request descriptor.
+     *
+     * @param method method of the request
+     * @param url    url of the request
+     * @param body   object to post, null to post without body
+     * @param type   type of the response object, null if no response body is expected
+     */
+    public BatchRequest(Method method, String url, Object body, TypeReference<T> type) {
+        if (Method.GET == method && null != body) {
+            throw new IllegalArgumentException("GET request cannot have a body");
+        }
+        this.method = method;
+        this.url = url;
+        this.body = body;
+        this.type = type;
+    }
+
+    public static <T> BatchRequest<T> get(String url, TypeReference<T> type) {
+        return new BatchRequest<>(Method.GET, url, null, type);
+    }
+
+    public static <T> BatchRequest<T> post(String url, Object body, TypeReference<T> type) {
+        return new BatchRequest<>(Method.POST, url, body, type);
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Object getBody() {
+        return body;
+    }
+
+    public TypeReference<T> getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + url;
+    }
+}
@@ -0,0 +1,63 @@
+package org.entitypedia.games.common.client;
+
+import org.entitypedia.games.common.exceptions.GameException;
+
+/**
+ * Result of a call executed as a part of a batch: either the response object or the exception.
+ *
+ * @param <T> type of the response object
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class BatchResult<T> {
+
+    private final T value;
+    private final GameException exception;
+
+    private BatchResult(T value, GameException exception) {
+        this.value = value;
+        this.exception = exception;
+    }
+
+    public static <T> BatchResult<T> success(T value) {
+        return new BatchResult<>(value, null);
+    }
+
+    public static <T> BatchResult<T> failure(GameException exception) {
+        return new BatchResult<>(null, exception);
+    }
+
+    public boolean isSuccess() {
+        return null == exception;
+    }
+
+    /**
+     * Returns the response object, null if the call failed or no response body was expected.
+     *
+     * @return response object or null
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the exception the call failed with, null if the call succeeded.
+     *
+     * @return exception or null
+     */
+    public GameException getException() {
+        return exception;
+    }
+
+    /**
+     * Returns the response object or throws the exception the call failed with.
+     *
+     * @return response object
+     * @throws GameException exception the call failed with
+     */
+    public T get() throws GameException {
+        if (null != exception) {
+            throw exception;
+        }
+        return value;
+    }
+}
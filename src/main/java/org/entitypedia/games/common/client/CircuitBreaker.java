@@ -0,0 +1,120 @@
+package org.entitypedia.games.common.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Circuit breaker of a single endpoint. After a number of consecutive failures the breaker opens and calls
+ * fail fast without reaching the endpoint. When the open time passes, a single probe call is let through:
+ * its success closes the breaker, its failure opens it again.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String endpoint;
+    private final int failureThreshold;
+    private final long openTime;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean probing;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Creates a breaker.
+     *
+     * @param endpoint         endpoint the breaker guards
+     * @param failureThreshold number of consecutive failures which opens the breaker
+     * @param openTime         how long the breaker stays open before a probe call, in milliseconds
+     */
+    public CircuitBreaker(String endpoint, int failureThreshold, long openTime) {
+        this.endpoint = endpoint;
+        this.failureThreshold = failureThreshold;
+        this.openTime = openTime;
+    }
+
+    /**
+     * Checks whether a call may proceed. The caller must report the outcome of an allowed call with
+     * {@link #onSuccess()} or {@link #onFailure()}.
+     *
+     * @throws CircuitBreakerOpenException if the breaker is open
+     */
+    public void acquire() throws CircuitBreakerOpenException {
+        synchronized (this) {
+            switch (state) {
+                case CLOSED:
+                    return;
+                case OPEN:
+                    if (openedAt + openTime <= System.currentTimeMillis()) {
+                        state = State.HALF_OPEN;
+                        probing = true;
+                        return;
+                    }
+                    break;
+                case HALF_OPEN:
+                    if (!probing) {
+                        probing = true;
+                        return;
+                    }
+                    break;
+            }
+        }
+        rejected.incrementAndGet();
+        throw new CircuitBreakerOpenException("Circuit breaker is open for " + endpoint);
+    }
+
+    /**
+     * Reports a successful call.
+     */
+    public synchronized void onSuccess() {
+        failures = 0;
+        probing = false;
+        state = State.CLOSED;
+    }
+
+    /**
+     * Reports a failed call.
+     */
+    public synchronized void onFailure() {
+        failures++;
+        probing = false;
+        if (State.HALF_OPEN == state || (State.CLOSED == state && failures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Reports an allowed call which ended without an outcome, for example was aborted.
+     */
+    public synchronized void onIgnored() {
+        probing = false;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Returns number of calls rejected while the breaker was open.
+     * @return number of rejected calls
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public String toString() {
+        return endpoint + ": " + getState();
+    }
+}
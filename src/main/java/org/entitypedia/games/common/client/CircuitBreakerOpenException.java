@@ -0,0 +1,15 @@
+package org.entitypedia.games.common.client;
+
+import org.entitypedia.games.common.exceptions.GameException;
+
+/**
+ * Thrown when a call fails fast because the circuit breaker of its endpoint is open.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class CircuitBreakerOpenException extends GameException {
+
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+}
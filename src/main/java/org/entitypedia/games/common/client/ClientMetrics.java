@@ -0,0 +1,118 @@
+package org.entitypedia.games.common.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Metrics of client calls, per endpoint template and HTTP method, and listeners of completed calls.
+ * The number of tracked endpoints is bounded; calls to endpoints over the bound are accounted under
+ * the {@link #OVERFLOW_TEMPLATE} template.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ClientMetrics implements ClientMetricsMXBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientMetrics.class);
+
+    public static final int DEFAULT_MAX_ENDPOINTS = 1000;
+    public static final String OVERFLOW_TEMPLATE = "{other}";
+
+    private final int maxEndpoints;
+    private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final List<RequestListener> listeners = new CopyOnWriteArrayList<>();
+
+    public ClientMetrics() {
+        this(DEFAULT_MAX_ENDPOINTS);
+    }
+
+    public ClientMetrics(int maxEndpoints) {
+        this.maxEndpoints = maxEndpoints;
+    }
+
+    /**
+     * Records a completed call and passes it to the listeners.
+     *
+     * @param event measurements of the call
+     */
+    public void record(RequestEvent event) {
+        getEndpointMetrics(event.getMethod(), event.getTemplate(), true).record(event);
+        for (RequestListener listener : listeners) {
+            try {
+                listener.requestCompleted(event);
+            } catch (RuntimeException e) {
+                log.warn("Request listener failed: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    public void addListener(RequestListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(RequestListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns metrics of the endpoint template and method, null if it was not called.
+     *
+     * @param method   HTTP method
+     * @param template endpoint template
+     * @return endpoint metrics or null
+     */
+    public EndpointMetrics getEndpointMetrics(String method, String template) {
+        return getEndpointMetrics(method, template, false);
+    }
+
+    private EndpointMetrics getEndpointMetrics(String method, String template, boolean create) {
+        String key = method + ' ' + template;
+        EndpointMetrics result = endpoints.get(key);
+        if (null == result && create) {
+            if (endpoints.size() >= maxEndpoints) {
+                template = OVERFLOW_TEMPLATE;
+                key = method + ' ' + template;
+            }
+            final String t = template;
+            result = endpoints.computeIfAbsent(key, k -> new EndpointMetrics(method, t));
+        }
+        return result;
+    }
+
+    @Override
+    public List<EndpointStats> getEndpoints() {
+        List<EndpointStats> result = new ArrayList<>(endpoints.size());
+        for (EndpointMetrics metrics : endpoints.values()) {
+            result.add(metrics.getStats());
+        }
+        return result;
+    }
+
+    @Override
+    public long getRequests() {
+        long result = 0;
+        for (EndpointMetrics metrics : endpoints.values()) {
+            result += metrics.getRequests();
+        }
+        return result;
+    }
+
+    @Override
+    public long getErrors() {
+        long result = 0;
+        for (EndpointMetrics metrics : endpoints.values()) {
+            result += metrics.getErrors();
+        }
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        endpoints.clear();
+    }
+}
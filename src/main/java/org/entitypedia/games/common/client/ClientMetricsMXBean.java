@@ -0,0 +1,34 @@
+package org.entitypedia.games.common.client;
+
+import java.util.List;
+
+/**
+ * JMX view of client metrics.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface ClientMetricsMXBean {
+
+    /**
+     * Returns statistics of all endpoint templates and methods called so far.
+     * @return endpoint statistics
+     */
+    List<EndpointStats> getEndpoints();
+
+    /**
+     * Returns number of calls to all endpoints.
+     * @return number of calls
+     */
+    long getRequests();
+
+    /**
+     * Returns number of failed calls to all endpoints.
+     * @return number of failed calls
+     */
+    long getErrors();
+
+    /**
+     * Resets all metrics.
+     */
+    void reset();
+}
@@ -0,0 +1,58 @@
+package org.entitypedia.games.common.client;
+
+/**
+ * A snapshot of the connection pool state.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ConnectionPoolStats {
+
+    private final int leased;
+    private final int available;
+    private final int pending;
+    private final int max;
+
+    public ConnectionPoolStats(int leased, int available, int pending, int max) {
+        this.leased = leased;
+        this.available = available;
+        this.pending = pending;
+        this.max = max;
+    }
+
+    /**
+     * Returns number of connections in use.
+     * @return number of connections in use
+     */
+    public int getLeased() {
+        return leased;
+    }
+
+    /**
+     * Returns number of idle connections in the pool.
+     * @return number of idle connections
+     */
+    public int getAvailable() {
+        return available;
+    }
+
+    /**
+     * Returns number of requests waiting for a connection.
+     * @return number of waiting requests
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    /**
+     * Returns maximum number of connections.
+     * @return maximum number of connections
+     */
+    public int getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "leased: " + leased + ", available: " + available + ", pending: " + pending + ", max: " + max;
+    }
+}
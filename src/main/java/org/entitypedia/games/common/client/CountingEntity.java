@@ -0,0 +1,82 @@
+package org.entitypedia.games.common.client;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * Entity wrapper which reports the number of bytes read from or written by the wrapped entity.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class CountingEntity extends HttpEntityWrapper {
+
+    private final LongConsumer counter;
+
+    CountingEntity(HttpEntity entity, LongConsumer counter) {
+        super(entity);
+        this.counter = counter;
+    }
+
+    HttpEntity getWrappedEntity() {
+        return wrappedEntity;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return new FilterInputStream(super.getContent()) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (0 <= b) {
+                    counter.accept(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int count = super.read(b, off, len);
+                if (0 < count) {
+                    counter.accept(count);
+                }
+                return count;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long count = super.skip(n);
+                counter.accept(count);
+                return count;
+            }
+        };
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException {
+        super.writeTo(new FilterOutputStream(outstream) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                counter.accept(1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                counter.accept(len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        });
+    }
+}
@@ -0,0 +1,170 @@
+package org.entitypedia.games.common.client;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time by which calls should complete. A deadline applies to the calls made by the current thread
+ * while it is entered:
+ * <pre>
+ * try (Deadline.Scope scope = Deadline.after(200, TimeUnit.MILLISECONDS).enter()) {
+ *     Word word = client.getWord(wordId);
+ *     List&lt;Clue&gt; clues = client.getWordClues(wordId);
+ * }
+ * </pre>
+ * The deadline bounds waiting for a pooled connection, connecting, sending and receiving together, and covers
+ * retries. A call which is still in progress when the deadline passes is aborted and fails with
+ * {@link DeadlineExceededException}; a call made after the deadline passed fails at once. Asynchronous calls
+ * take the deadline of the thread which made them, and so do calls the client makes in background on behalf of
+ * a call: batch workers, page prefetches and cache revalidations. Streaming calls are bounded until the response arrives,
+ * elements are then read at the pace of the consumer.
+ * <p>
+ * Scopes nest: an inner scope may shorten the deadline, but not extend it.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    // System.nanoTime() of the deadline
+    private final long time;
+
+    private Deadline(long time) {
+        this.time = time;
+    }
+
+    /**
+     * Creates a deadline the timeout from now.
+     *
+     * @param timeout time budget
+     * @param unit    unit of the timeout
+     * @return deadline
+     */
+    public static Deadline after(long timeout, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * Returns the deadline of the current thread.
+     *
+     * @return deadline or null if the thread has no deadline
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns the time left.
+     *
+     * @param unit unit of the result
+     * @return time left, negative or zero if the deadline passed
+     */
+    public long getRemaining(TimeUnit unit) {
+        return unit.convert(time - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns whether the deadline passed.
+     *
+     * @return true if the deadline passed
+     */
+    public boolean isExpired() {
+        return 0 >= time - System.nanoTime();
+    }
+
+    /**
+     * Makes this deadline the deadline of the current thread until the scope is closed, unless the thread
+     * already has an earlier one.
+     *
+     * @return scope to close
+     */
+    public Scope enter() {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(null != previous && previous.time - time < 0 ? previous : this);
+        return new Scope(previous);
+    }
+
+    /**
+     * Returns the earlier of two deadlines.
+     *
+     * @param a deadline, may be null
+     * @param b deadline, may be null
+     * @return earlier deadline, null if both are null
+     */
+    static Deadline earlier(Deadline a, Deadline b) {
+        if (null == a) {
+            return b;
+        }
+        return null == b || a.time - b.time < 0 ? a : b;
+    }
+
+    /**
+     * Wraps the task to run under the deadline of the current thread, for handing it over to another thread.
+     *
+     * @param task task
+     * @return task entering the deadline, or the task itself if the current thread has no deadline
+     */
+    static Runnable propagate(final Runnable task) {
+        final Deadline deadline = current();
+        if (null == deadline) {
+            return task;
+        }
+        return () -> {
+            Scope scope = deadline.enter();
+            try {
+                task.run();
+            } finally {
+                scope.close();
+            }
+        };
+    }
+
+    /**
+     * Wraps the task to run under the deadline of the current thread, for handing it over to another thread.
+     *
+     * @param task task
+     * @param <V>  type of the result
+     * @return task entering the deadline, or the task itself if the current thread has no deadline
+     */
+    static <V> Callable<V> propagate(final Callable<V> task) {
+        final Deadline deadline = current();
+        if (null == deadline) {
+            return task;
+        }
+        return () -> {
+            Scope scope = deadline.enter();
+            try {
+                return task.call();
+            } finally {
+                scope.close();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline in " + getRemaining(TimeUnit.MILLISECONDS) + " ms";
+    }
+
+    /**
+     * Period a deadline applies to the current thread. Closing it restores the deadline the thread had before.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final Deadline previous;
+
+        private Scope(Deadline previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (null == previous) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.entitypedia.games.common.client;
+
+import org.entitypedia.games.common.exceptions.GameException;
+
+/**
+ * Thrown when a call does not complete by its {@link Deadline}.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class DeadlineExceededException extends GameException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,457 @@
+package org.entitypedia.games.common.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent store of cached responses, backing a {@link ResponseCache} so that a restarted client starts with
+ * a warm cache. Responses are appended to a single log file; an in-memory index maps keys to their latest
+ * record. When the file grows over its size limit, live records are copied to a new file, dropping the oldest
+ * ones if they still do not fit, and the new file replaces the old one.
+ * <p>
+ * Records are checksummed. A record torn by a crash is detected on open and the log is truncated before it,
+ * so a crash loses at most the last writes. Writes are not forced to disk, the store is a cache.
+ * <p>
+ * The file holds response bodies and signing identities (consumer keys and tokens, not secrets) and is
+ * created readable and writable by its owner only. Permissions of an existing file are left as they are.
+ * A store should be used by a single client at a time and closed by its owner.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class DiskResponseStore implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(DiskResponseStore.class);
+
+    private static final int MAGIC = 0x47435253;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    // record length and checksum around the payload
+    private static final int RECORD_OVERHEAD = 8;
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    private static final FileAttribute<Set<PosixFilePermission>> OWNER_ONLY =
+            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"));
+
+    private final Path file;
+    private final long maxBytes;
+
+    private FileChannel channel;
+    private long size;
+    private long liveBytes;
+    // insertion order is write order, oldest first
+    private final Map<String, Location> index = new LinkedHashMap<>();
+    private long compactions;
+
+    /**
+     * Opens the store, creating the file if it does not exist.
+     *
+     * @param file     log file
+     * @param maxBytes size of the file which triggers compaction
+     * @throws IOException if the file cannot be opened or is not a store
+     */
+    public DiskResponseStore(Path file, long maxBytes) throws IOException {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        Path parent = file.toAbsolutePath().getParent();
+        if (null != parent) {
+            Files.createDirectories(parent);
+        }
+        channel = openOwnerOnly(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            load();
+            if (size > maxBytes || (size > HEADER_SIZE && liveBytes < (size - HEADER_SIZE) / 2)) {
+                compact();
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the stored entry for the key, or null. The entry has no decoded objects and has never been
+     * validated by this client.
+     *
+     * @param key cache key
+     * @return entry or null
+     * @throws IOException if the file cannot be read
+     */
+    public synchronized ResponseCache.Entry get(String key) throws IOException {
+        Location location = index.get(key);
+        if (null == location) {
+            return null;
+        }
+        byte[] payload = readPayload(location.offset, location.length);
+        if (null == payload) {
+            // cannot happen unless the file is modified behind the store
+            index.remove(key);
+            liveBytes -= location.length;
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        in.readByte();
+        in.readUTF();
+        return readEntry(in);
+    }
+
+    /**
+     * Stores the entry, replacing the previous one for the key.
+     *
+     * @param key   cache key
+     * @param entry entry
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void put(String key, ResponseCache.Entry entry) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(entry.getBody().length + key.length() + 128);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(PUT);
+        out.writeUTF(key);
+        writeOptional(out, entry.getETag());
+        writeOptional(out, entry.getLastModified());
+        out.writeUTF(entry.getFormat().name());
+        out.writeLong(entry.getCreated());
+        out.writeInt(entry.getBody().length);
+        out.write(entry.getBody());
+        out.flush();
+        long offset = append(buffer.toByteArray());
+        Location old = index.remove(key);
+        if (null != old) {
+            liveBytes -= old.length;
+        }
+        Location location = new Location(offset, buffer.size() + RECORD_OVERHEAD);
+        index.put(key, location);
+        liveBytes += location.length;
+        if (size > maxBytes) {
+            compact();
+        }
+    }
+
+    /**
+     * Removes the entry for the key.
+     *
+     * @param key cache key
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void remove(String key) throws IOException {
+        Location old = index.remove(key);
+        if (null != old) {
+            liveBytes -= old.length;
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(key.length() + 8);
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.writeByte(REMOVE);
+            out.writeUTF(key);
+            out.flush();
+            append(buffer.toByteArray());
+            if (size > maxBytes) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Removes all entries.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void clear() throws IOException {
+        index.clear();
+        liveBytes = 0;
+        channel.truncate(HEADER_SIZE);
+        size = HEADER_SIZE;
+    }
+
+    /**
+     * Returns number of stored entries.
+     * @return number of entries
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Returns size of the log file.
+     * @return file size in bytes
+     */
+    public synchronized long getFileSize() {
+        return size;
+    }
+
+    /**
+     * Returns number of times the log was compacted since the store was opened.
+     * @return number of compactions
+     */
+    public synchronized long getCompactions() {
+        return compactions;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    private void load() throws IOException {
+        long fileSize = channel.size();
+        if (0 == fileSize) {
+            writeHeader(channel);
+            size = HEADER_SIZE;
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (HEADER_SIZE != channel.read(header, 0) || MAGIC != header.getInt(0)) {
+            throw new IOException("Not a response store: " + file);
+        }
+        if (VERSION != header.getInt(4)) {
+            log.warn("Unsupported response store version " + header.getInt(4) + ", discarding " + file);
+            channel.truncate(0);
+            writeHeader(channel);
+            size = HEADER_SIZE;
+            return;
+        }
+
+        long offset = HEADER_SIZE;
+        ByteBuffer length = ByteBuffer.allocate(4);
+        while (offset < fileSize) {
+            length.clear();
+            if (4 != channel.read(length, offset)) {
+                break;
+            }
+            int payloadLength = length.getInt(0);
+            if (0 >= payloadLength || payloadLength > fileSize - offset - RECORD_OVERHEAD) {
+                break;
+            }
+            byte[] payload = readPayload(offset, payloadLength + RECORD_OVERHEAD);
+            if (null == payload) {
+                break;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            byte type = in.readByte();
+            String key = in.readUTF();
+            Location old = index.remove(key);
+            if (null != old) {
+                liveBytes -= old.length;
+            }
+            if (PUT == type) {
+                Location location = new Location(offset, payloadLength + RECORD_OVERHEAD);
+                index.put(key, location);
+                liveBytes += location.length;
+            }
+            offset += payloadLength + RECORD_OVERHEAD;
+        }
+        if (offset < fileSize) {
+            log.warn("Truncating response store " + file + " after a damaged record at " + offset);
+            channel.truncate(offset);
+        }
+        size = offset;
+    }
+
+    /**
+     * Copies live records to a new file, dropping the oldest ones until they take at most three quarters of
+     * the size limit, and replaces the log with it.
+     */
+    private void compact() throws IOException {
+        long budget = maxBytes / 4 * 3;
+        List<Map.Entry<String, Location>> live = new ArrayList<>(index.entrySet());
+        int first = 0;
+        long bytes = liveBytes;
+        while (first < live.size() && bytes > budget) {
+            bytes -= live.get(first).getValue().length;
+            first++;
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Map<String, Location> compacted = new HashMap<>();
+        long offset = HEADER_SIZE;
+        // a leftover file would keep its permissions
+        Files.deleteIfExists(temp);
+        try (FileChannel target = openOwnerOnly(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            writeHeader(target);
+            for (int i = first; i < live.size(); i++) {
+                Location location = live.get(i).getValue();
+                long position = location.offset;
+                long end = position + location.length;
+                while (position < end) {
+                    position += channel.transferTo(position, end - position, target);
+                }
+                compacted.put(live.get(i).getKey(), new Location(offset, location.length));
+                offset += location.length;
+            }
+            target.force(false);
+        }
+        channel.close();
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            // the old log is still in place and matches the index if the move failed
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        index.clear();
+        for (int i = first; i < live.size(); i++) {
+            String key = live.get(i).getKey();
+            index.put(key, compacted.get(key));
+        }
+        size = offset;
+        liveBytes = offset - HEADER_SIZE;
+        compactions++;
+        log.debug("Compacted response store " + file + ": " + index.size() + " entries, " + size + " bytes, "
+                + first + " dropped");
+    }
+
+    private long append(byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        ByteBuffer record = ByteBuffer.allocate(payload.length + RECORD_OVERHEAD);
+        record.putInt(payload.length).put(payload).putInt((int) crc.getValue());
+        record.flip();
+        long offset = size;
+        long position = offset;
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+        size = position;
+        return offset;
+    }
+
+    /**
+     * Reads and checks a record.
+     *
+     * @return payload of the record, null if the record is damaged
+     */
+    private byte[] readPayload(long offset, int length) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(length);
+        while (record.hasRemaining()) {
+            if (0 > channel.read(record, offset + record.position())) {
+                return null;
+            }
+        }
+        int payloadLength = record.getInt(0);
+        if (payloadLength != length - RECORD_OVERHEAD) {
+            return null;
+        }
+        byte[] payload = new byte[payloadLength];
+        record.position(4);
+        record.get(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        if ((int) crc.getValue() != record.getInt()) {
+            return null;
+        }
+        return payload;
+    }
+
+    private static ResponseCache.Entry readEntry(DataInputStream in) throws IOException {
+        String eTag = readOptional(in);
+        String lastModified = readOptional(in);
+        WireFormat format;
+        try {
+            format = WireFormat.valueOf(in.readUTF());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown wire format in response store", e);
+        }
+        long created = in.readLong();
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        return new ResponseCache.Entry(eTag, lastModified, format, body, created);
+    }
+
+    /**
+     * Opens the file, creating it readable and writable by the owner only. Where POSIX permissions are not
+     * supported, access of others is removed after creation, as far as the file system allows.
+     */
+    private static FileChannel openOwnerOnly(Path path, OpenOption... options) throws IOException {
+        Set<OpenOption> optionSet = new HashSet<>(Arrays.asList(options));
+        try {
+            return FileChannel.open(path, optionSet, OWNER_ONLY);
+        } catch (UnsupportedOperationException e) {
+            boolean created = Files.notExists(path);
+            FileChannel result = FileChannel.open(path, optionSet);
+            if (created) {
+                boolean restricted = false;
+                if (path.getFileSystem() == FileSystems.getDefault()) {
+                    File f = path.toFile();
+                    restricted = f.setReadable(false, false) & f.setReadable(true, true)
+                            & f.setWritable(false, false) & f.setWritable(true, true);
+                }
+                if (!restricted) {
+                    log.warn("Cannot restrict access to response store " + path);
+                }
+            }
+            return result;
+        }
+    }
+
+    private static void writeHeader(FileChannel target) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        while (header.hasRemaining()) {
+            target.write(header, header.position());
+        }
+        // transferTo appends at the channel position
+        target.position(HEADER_SIZE);
+    }
+
+    private static void writeOptional(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(null != value);
+        if (null != value) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readOptional(DataInputStream in) throws IOException {
+        try {
+            return in.readBoolean() ? in.readUTF() : null;
+        } catch (EOFException e) {
+            throw new IOException("Truncated record in response store", e);
+        }
+    }
+
+    private static final class Location {
+
+        private final long offset;
+        private final int length;
+
+        private Location(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.entitypedia.games.common.client;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A node of an {@link EndpointGroup}: its url, health and the load and latency statistics selectors use.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class Endpoint {
+
+    // how fast latency samples decay, in nanoseconds
+    private static final double DECAY_TIME = 10e9;
+
+    private final String url;
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private volatile boolean ejected;
+    private int failures;
+    private long ejectedAt;
+
+    private double latency;
+    private long latencyUpdated;
+
+    /**
+     * Creates an endpoint.
+     *
+     * @param url api endpoint url, ending with a slash
+     */
+    public Endpoint(String url) {
+        this.url = url;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns number of requests sent to the endpoint which have not received a response yet.
+     * @return number of outstanding requests
+     */
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * Returns whether the endpoint is ejected from the group after failures.
+     * @return true if ejected
+     */
+    public boolean isEjected() {
+        return ejected;
+    }
+
+    /**
+     * Returns the moving average of response times, weighted towards recent and slow responses.
+     * @return average response time in nanoseconds, 0 if there are no responses yet
+     */
+    public synchronized double getLatency() {
+        return latency;
+    }
+
+    void onStart() {
+        outstanding.incrementAndGet();
+    }
+
+    /**
+     * Accounts a response.
+     *
+     * @param nanos response time
+     */
+    void onResponse(long nanos) {
+        outstanding.decrementAndGet();
+        long now = System.nanoTime();
+        synchronized (this) {
+            if (0 == latencyUpdated || nanos > latency) {
+                // jump to slow responses at once, so a degrading node stops getting traffic quickly
+                latency = nanos;
+            } else {
+                double weight = Math.exp(-(now - latencyUpdated) / DECAY_TIME);
+                latency = latency * weight + nanos * (1 - weight);
+            }
+            latencyUpdated = now;
+        }
+    }
+
+    /**
+     * Accounts a request which failed without a response.
+     */
+    void onError() {
+        outstanding.decrementAndGet();
+    }
+
+    /**
+     * Accounts a success of a request or a health check, readmitting the endpoint if it was ejected.
+     *
+     * @return true if the endpoint was readmitted
+     */
+    synchronized boolean onSuccess() {
+        failures = 0;
+        if (ejected) {
+            ejected = false;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Accounts a failure of a request or a health check, ejecting the endpoint after consecutive failures.
+     *
+     * @param threshold number of consecutive failures which ejects the endpoint
+     * @return true if the endpoint was ejected
+     */
+    synchronized boolean onFailure(int threshold) {
+        failures++;
+        if (failures >= threshold) {
+            boolean result = !ejected;
+            ejected = true;
+            ejectedAt = System.currentTimeMillis();
+            return result;
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether an ejected endpoint has been out for the time and may be tried again.
+     *
+     * @param ejectionTime ejection time in milliseconds
+     * @return true if the ejection expired
+     */
+    synchronized boolean isEjectionExpired(long ejectionTime) {
+        return ejectedAt + ejectionTime <= System.currentTimeMillis();
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
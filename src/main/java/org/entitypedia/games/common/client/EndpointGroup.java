@@ -0,0 +1,130 @@
+package org.entitypedia.games.common.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Group of interchangeable api endpoints, like nodes of a horizontally scaled game server. Requests are spread
+ * over the endpoints by a {@link EndpointSelector}. An endpoint failing a number of consecutive requests or
+ * health checks is ejected from the group. Ejected endpoints are brought back by a successful health check or,
+ * if the group is not health checked, tried again after the ejection time. If all endpoints are ejected,
+ * requests are spread over all of them.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class EndpointGroup {
+
+    private static final Logger log = LoggerFactory.getLogger(EndpointGroup.class);
+
+    private final List<Endpoint> endpoints;
+    private final EndpointSelector selector;
+    private final int ejectionThreshold;
+    private final long ejectionTime;
+    private final AtomicInteger ejected = new AtomicInteger();
+    private volatile boolean healthChecked;
+
+    /**
+     * Creates a group.
+     *
+     * @param urls              api endpoint urls, ending with a slash
+     * @param selector          endpoint selection policy
+     * @param ejectionThreshold number of consecutive failures which ejects an endpoint
+     * @param ejectionTime      how long an endpoint stays ejected if the group is not health checked, in milliseconds
+     */
+    public EndpointGroup(List<String> urls, EndpointSelector selector, int ejectionThreshold, long ejectionTime) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("Endpoint group should have at least one endpoint");
+        }
+        List<Endpoint> list = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            list.add(new Endpoint(url));
+        }
+        this.endpoints = Collections.unmodifiableList(list);
+        this.selector = selector;
+        this.ejectionThreshold = ejectionThreshold;
+        this.ejectionTime = ejectionTime;
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public EndpointSelector getSelector() {
+        return selector;
+    }
+
+    /**
+     * Returns whether ejected endpoints are brought back by health checks only.
+     * @return true if the group is health checked
+     */
+    public boolean isHealthChecked() {
+        return healthChecked;
+    }
+
+    void setHealthChecked(boolean healthChecked) {
+        this.healthChecked = healthChecked;
+    }
+
+    /**
+     * Chooses an endpoint for a request.
+     *
+     * @return endpoint
+     */
+    public Endpoint select() {
+        if (0 == ejected.get()) {
+            return selector.select(endpoints);
+        }
+        List<Endpoint> available = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            if (!endpoint.isEjected() || (!healthChecked && endpoint.isEjectionExpired(ejectionTime))) {
+                available.add(endpoint);
+            }
+        }
+        return selector.select(available.isEmpty() ? endpoints : available);
+    }
+
+    /**
+     * Returns the endpoint the url belongs to.
+     *
+     * @param url url
+     * @return endpoint with the longest url the url starts with, null if none
+     */
+    public Endpoint find(String url) {
+        Endpoint result = null;
+        for (Endpoint endpoint : endpoints) {
+            if (url.startsWith(endpoint.getUrl()) && (null == result || endpoint.getUrl().length() > result.getUrl().length())) {
+                result = endpoint;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reports a successful request or health check of the endpoint.
+     *
+     * @param endpoint endpoint
+     */
+    public void onSuccess(Endpoint endpoint) {
+        if (endpoint.onSuccess()) {
+            ejected.decrementAndGet();
+            log.info("Endpoint readmitted: " + endpoint);
+        }
+    }
+
+    /**
+     * Reports a failed request or health check of the endpoint.
+     *
+     * @param endpoint endpoint
+     */
+    public void onFailure(Endpoint endpoint) {
+        if (endpoint.onFailure(ejectionThreshold)) {
+            ejected.incrementAndGet();
+            log.warn("Endpoint ejected: " + endpoint);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.entitypedia.games.common.client;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live metrics of an endpoint template and HTTP method: counters and latency histograms.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class EndpointMetrics {
+
+    private final String method;
+    private final String template;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final LatencyHistogram sign = new LatencyHistogram();
+    private final LatencyHistogram connection = new LatencyHistogram();
+    private final LatencyHistogram server = new LatencyHistogram();
+    private final LatencyHistogram decode = new LatencyHistogram();
+
+    public EndpointMetrics(String method, String template) {
+        this.method = method;
+        this.template = template;
+    }
+
+    /**
+     * Records a completed call.
+     *
+     * @param event measurements of the call
+     */
+    public void record(RequestEvent event) {
+        requests.increment();
+        if (event.isError()) {
+            errors.increment();
+        }
+        bytesSent.add(event.getBytesSent());
+        bytesReceived.add(event.getBytesReceived());
+        total.record(event.getTotalTime());
+        sign.record(event.getSignTime());
+        connection.record(event.getConnectionTime());
+        server.record(event.getServerTime());
+        decode.record(event.getDecodeTime());
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * Returns number of calls.
+     * @return number of calls
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * Returns number of failed calls.
+     * @return number of failed calls
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public LatencyHistogram getTotal() {
+        return total;
+    }
+
+    public LatencyHistogram getSign() {
+        return sign;
+    }
+
+    public LatencyHistogram getConnection() {
+        return connection;
+    }
+
+    public LatencyHistogram getServer() {
+        return server;
+    }
+
+    public LatencyHistogram getDecode() {
+        return decode;
+    }
+
+    /**
+     * Returns a snapshot of the metrics.
+     *
+     * @return endpoint statistics
+     */
+    public EndpointStats getStats() {
+        return new EndpointStats(method, template, requests.sum(), errors.sum(), bytesSent.sum(), bytesReceived.sum(),
+                total.getStats(), sign.getStats(), connection.getStats(), server.getStats(), decode.getStats());
+    }
+
+    public void reset() {
+        requests.reset();
+        errors.reset();
+        bytesSent.reset();
+        bytesReceived.reset();
+        total.reset();
+        sign.reset();
+        connection.reset();
+        server.reset();
+        decode.reset();
+    }
+}
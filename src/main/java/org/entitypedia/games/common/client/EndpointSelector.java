@@ -0,0 +1,20 @@
+package org.entitypedia.games.common.client;
+
+import java.util.List;
+
+/**
+ * Policy choosing the endpoint of an {@link EndpointGroup} for a request.
+ * Implementations should be thread safe and cheap, they are called for every request.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface EndpointSelector {
+
+    /**
+     * Chooses an endpoint.
+     *
+     * @param endpoints available endpoints, not empty
+     * @return chosen endpoint
+     */
+    Endpoint select(List<Endpoint> endpoints);
+}
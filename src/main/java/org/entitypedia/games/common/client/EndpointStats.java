@@ -0,0 +1,121 @@
+package org.entitypedia.games.common.client;
+
+/**
+ * A snapshot of metrics of an endpoint template and HTTP method.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class EndpointStats {
+
+    private final String method;
+    private final String template;
+    private final long requests;
+    private final long errors;
+    private final long bytesSent;
+    private final long bytesReceived;
+    private final LatencyStats total;
+    private final LatencyStats sign;
+    private final LatencyStats connection;
+    private final LatencyStats server;
+    private final LatencyStats decode;
+
+    public EndpointStats(String method, String template, long requests, long errors, long bytesSent, long bytesReceived,
+                         LatencyStats total, LatencyStats sign, LatencyStats connection, LatencyStats server, LatencyStats decode) {
+        this.method = method;
+        this.template = template;
+        this.requests = requests;
+        this.errors = errors;
+        this.bytesSent = bytesSent;
+        this.bytesReceived = bytesReceived;
+        this.total = total;
+        this.sign = sign;
+        this.connection = connection;
+        this.server = server;
+        this.decode = decode;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * Returns number of calls.
+     * @return number of calls
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Returns number of calls which failed with an exception or a status other than 200.
+     * @return number of failed calls
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Returns number of request body bytes sent.
+     * @return number of bytes sent
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Returns number of response body bytes received, after decompression by the blocking client.
+     * @return number of bytes received
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * Returns latencies of whole calls, including retries.
+     * @return call latencies
+     */
+    public LatencyStats getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns time spent signing requests.
+     * @return signing latencies
+     */
+    public LatencyStats getSign() {
+        return sign;
+    }
+
+    /**
+     * Returns time spent leasing and, if needed, opening a connection.
+     * @return connection latencies
+     */
+    public LatencyStats getConnection() {
+        return connection;
+    }
+
+    /**
+     * Returns time from sending the request to receiving response headers.
+     * @return server latencies
+     */
+    public LatencyStats getServer() {
+        return server;
+    }
+
+    /**
+     * Returns time spent reading and decoding response bodies.
+     * @return decoding latencies
+     */
+    public LatencyStats getDecode() {
+        return decode;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + template + ": requests: " + requests + ", errors: " + errors + ", total: [" + total + "]";
+    }
+}
@@ -0,0 +1,124 @@
+package org.entitypedia.games.common.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Endpoint path template with placeholders, like <code>words/{wordId}/clues</code>, parsed once and
+ * expanded into urls. Placeholder values are percent-encoded as path segments. Templates are immutable and
+ * are meant to be declared once, as constants:
+ * <pre>
+ * private static final EndpointTemplate WORD_CLUES = EndpointTemplate.compile("words/{wordId}/clues");
+ * ...
+ * String url = url(WORD_CLUES, wordId).page(pageSize, pageNo).param("filter", filter).toString();
+ * </pre>
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public final class EndpointTemplate {
+
+    // expected length of an expanded placeholder and of the query
+    private static final int VALUE_LENGTH = 12;
+    private static final int QUERY_LENGTH = 48;
+
+    private final String template;
+    // literal parts, one more than placeholders
+    private final String[] literals;
+    private final List<String> names;
+    private final int length;
+    private final boolean query;
+
+    private EndpointTemplate(String template, String[] literals, List<String> names) {
+        this.template = template;
+        this.literals = literals;
+        this.names = names;
+        int l = 0;
+        for (String literal : literals) {
+            l += literal.length();
+        }
+        this.length = l + names.size() * VALUE_LENGTH + QUERY_LENGTH;
+        this.query = -1 != template.indexOf('?');
+    }
+
+    /**
+     * Parses a template.
+     *
+     * @param template path template with {name} placeholders
+     * @return compiled template
+     * @throws IllegalArgumentException if the template has unbalanced braces or empty placeholders
+     */
+    public static EndpointTemplate compile(String template) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = template.indexOf('{', position);
+            int close = template.indexOf('}', position);
+            if (-1 == open) {
+                if (-1 != close) {
+                    throw new IllegalArgumentException("Unbalanced } in template: " + template);
+                }
+                literals.add(template.substring(position));
+                break;
+            }
+            if (close < open) {
+                throw new IllegalArgumentException("Unbalanced braces in template: " + template);
+            }
+            String name = template.substring(open + 1, close);
+            if (name.isEmpty() || -1 != name.indexOf('{')) {
+                throw new IllegalArgumentException("Invalid placeholder in template: " + template);
+            }
+            literals.add(template.substring(position, open));
+            names.add(name);
+            position = close + 1;
+        }
+        return new EndpointTemplate(template, literals.toArray(new String[literals.size()]),
+                Collections.unmodifiableList(names));
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * Returns placeholder names, in order of appearance.
+     * @return placeholder names
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Expands the template after the base url and returns a builder to add query parameters.
+     *
+     * @param base   base url, usually the api endpoint
+     * @param values placeholder values, in order of appearance
+     * @return url builder
+     * @throws IllegalArgumentException if the number of values does not match the placeholders or a value is null
+     */
+    public UrlBuilder expand(String base, Object... values) {
+        if (values.length != names.size()) {
+            throw new IllegalArgumentException("Template " + template + " expects " + names.size() + " values, got " + values.length);
+        }
+        StringBuilder result = new StringBuilder(base.length() + length).append(base).append(literals[0]);
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (null == value) {
+                throw new IllegalArgumentException("Null value for " + names.get(i) + " in template " + template);
+            }
+            if (value instanceof Integer || value instanceof Long) {
+                result.append(((Number) value).longValue());
+            } else {
+                UrlBuilder.encode(result, value.toString(), true);
+            }
+            result.append(literals[i + 1]);
+        }
+        return new UrlBuilder(result, query || -1 != base.indexOf('?'));
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
@@ -0,0 +1,36 @@
+package org.entitypedia.games.common.client;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Chooses the endpoint expected to respond first, by the moving average of its response times multiplied
+ * by its outstanding requests. Compares two endpoints picked at random, rather than all of them, so that
+ * clients sharing the same view of latencies do not all pile onto the fastest endpoint.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class EwmaSelector implements EndpointSelector {
+
+    @Override
+    public Endpoint select(List<Endpoint> endpoints) {
+        int size = endpoints.size();
+        if (1 == size) {
+            return endpoints.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        Endpoint a = endpoints.get(first);
+        Endpoint b = endpoints.get(second);
+        return getCost(a) <= getCost(b) ? a : b;
+    }
+
+    private static double getCost(Endpoint endpoint) {
+        // endpoints without responses yet cost as little as a 1 ms one, so they get traffic to be measured
+        return Math.max(endpoint.getLatency(), 1e6) * (endpoint.getOutstanding() + 1);
+    }
+}
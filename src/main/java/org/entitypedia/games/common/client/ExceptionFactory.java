@@ -0,0 +1,19 @@
+package org.entitypedia.games.common.client;
+
+import org.entitypedia.games.common.exceptions.ExceptionDetails;
+
+/**
+ * Creates the exception a client throws for error details sent by the server.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface ExceptionFactory {
+
+    /**
+     * Creates the exception.
+     *
+     * @param details error details
+     * @return exception to throw
+     */
+    RuntimeException create(ExceptionDetails details);
+}
@@ -0,0 +1,191 @@
+package org.entitypedia.games.common.client;
+
+import org.entitypedia.games.common.exceptions.ExceptionDetails;
+import org.entitypedia.games.common.exceptions.GameException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Maps exception class names sent by the server to factories of client exceptions. A factory is resolved once
+ * per class name and then reused:
+ * <ul>
+ * <li>games exceptions are created with their public Object[] constructor, passing error parameters, or with
+ * their public String constructor, passing error message; without either, the factory returns null;</li>
+ * <li>other runtime exceptions are created with their public String constructor, checked exceptions are
+ * wrapped into a games exception;</li>
+ * <li>classes unknown to the client are mapped as games exceptions;</li>
+ * <li>other classes are reported with a games exception.</li>
+ * </ul>
+ * Unknown class names are remembered too, up to a limit. Factories may be registered explicitly, for
+ * custom mapping or for exception classes not visible to the class loader of the client.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ExceptionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(ExceptionRegistry.class);
+
+    private static final int MAX_UNKNOWN_CLASSES = 1000;
+
+    private final ConcurrentMap<String, ExceptionFactory> factories = new ConcurrentHashMap<>();
+    private final AtomicInteger unknownClasses = new AtomicInteger();
+    private final ExceptionFactory unknownClassFactory = createFactory(GameException.class);
+
+    /**
+     * Registers the factory for the exception class name, replacing the resolved one.
+     *
+     * @param className exception class name
+     * @param factory   exception factory
+     */
+    public void register(String className, ExceptionFactory factory) {
+        factories.put(className, factory);
+    }
+
+    /**
+     * Resolves and registers the factory for the exception class.
+     *
+     * @param clazz exception class
+     */
+    public void register(Class<? extends Throwable> clazz) {
+        factories.put(clazz.getName(), createFactory(clazz));
+    }
+
+    /**
+     * Returns the factory for the exception class name, resolving it on first use.
+     *
+     * @param className exception class name
+     * @return exception factory
+     */
+    public ExceptionFactory getFactory(String className) {
+        ExceptionFactory result = factories.get(className);
+        if (null == result) {
+            result = resolve(className);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the exception for the error details.
+     *
+     * @param details error details
+     * @return exception, null for a games exception without suitable constructor
+     */
+    public RuntimeException create(ExceptionDetails details) {
+        return getFactory(details.getExceptionClass()).create(details);
+    }
+
+    private ExceptionFactory resolve(String className) {
+        Class<?> clazz;
+        try {
+            clazz = Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            log.debug("Exception class not found: " + className);
+            if (unknownClasses.incrementAndGet() <= MAX_UNKNOWN_CLASSES) {
+                ExceptionFactory previous = factories.putIfAbsent(className, unknownClassFactory);
+                if (null != previous) {
+                    unknownClasses.decrementAndGet();
+                    return previous;
+                }
+            } else {
+                unknownClasses.decrementAndGet();
+            }
+            return unknownClassFactory;
+        }
+        ExceptionFactory result = createFactory(clazz);
+        ExceptionFactory previous = factories.putIfAbsent(className, result);
+        return null == previous ? result : previous;
+    }
+
+    private static ExceptionFactory createFactory(final Class<?> clazz) {
+        if (GameException.class.isAssignableFrom(clazz)) {
+            Constructor<?> paramConstructor = getConstructor(clazz, Object[].class);
+            if (null == paramConstructor) {
+                log.debug("Cannot find paramConstructor for class: " + clazz.getName());
+                Constructor<?> stringConstructor = getConstructor(clazz, String.class);
+                if (null == stringConstructor) {
+                    log.debug("Cannot find stringConstructor for class: " + clazz.getName());
+                    return details -> null;
+                }
+                final Instantiator instantiator = new Instantiator(stringConstructor);
+                return details -> (RuntimeException) instantiator.newInstance(details.getErrorMessage());
+            }
+            final Instantiator instantiator = new Instantiator(paramConstructor);
+            return details -> (RuntimeException) instantiator.newInstance(details.getParams());
+        } else if (Throwable.class.isAssignableFrom(clazz)) {
+            Constructor<?> stringConstructor = getConstructor(clazz, String.class);
+            if (null == stringConstructor) {
+                // same cause as Class.getConstructor reports
+                return details -> new GameException("Cannot find String constructor for exception: " + clazz.getName(),
+                        new NoSuchMethodException(clazz.getName() + ".<init>(java.lang.String)"));
+            }
+            final Instantiator instantiator = new Instantiator(stringConstructor);
+            if (RuntimeException.class.isAssignableFrom(clazz)) {
+                return details -> (RuntimeException) instantiator.newInstance(details.getErrorMessage());
+            }
+            return details -> new GameException(details.getErrorMessage(), instantiator.newInstance(details.getErrorMessage()));
+        } else {
+            return details -> new GameException(details.getExceptionClass() + " is not assignable from Throwable");
+        }
+    }
+
+    private static Constructor<?> getConstructor(Class<?> clazz, Class<?> parameter) {
+        try {
+            return clazz.getConstructor(parameter);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Invokes a one-argument constructor through a method handle, or by reflection if the constructor is not
+     * accessible to a public lookup, failing the same way as {@link Constructor#newInstance} does.
+     */
+    private static final class Instantiator {
+
+        private final Constructor<?> constructor;
+        private final Class<?> parameterType;
+        private final MethodHandle handle;
+
+        private Instantiator(Constructor<?> constructor) {
+            this.constructor = constructor;
+            this.parameterType = constructor.getParameterTypes()[0];
+            MethodHandle h = null;
+            // handles of abstract class constructors fail on invocation, reflection reports them as before
+            if (!Modifier.isAbstract(constructor.getDeclaringClass().getModifiers())) {
+                try {
+                    h = MethodHandles.publicLookup().unreflectConstructor(constructor)
+                            .asType(MethodType.methodType(Throwable.class, Object.class));
+                } catch (IllegalAccessException | RuntimeException e) {
+                    log.debug("Cannot create method handle for " + constructor + ": " + e.getMessage());
+                }
+            }
+            this.handle = h;
+        }
+
+        private Throwable newInstance(Object argument) {
+            try {
+                // the handle casts the argument, reflection reports an argument of a wrong type as before
+                if (null == handle || (null != argument && !parameterType.isInstance(argument))) {
+                    return (Throwable) constructor.newInstance(argument);
+                }
+                try {
+                    return (Throwable) handle.invokeExact(argument);
+                } catch (Throwable t) {
+                    throw new InvocationTargetException(t);
+                }
+            } catch (InstantiationException | InvocationTargetException | IllegalAccessException e) {
+                throw new GameException(e.getMessage(), e);
+            }
+        }
+    }
+}
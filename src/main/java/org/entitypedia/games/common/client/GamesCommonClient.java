@@ -1,31 +1,92 @@
 package org.entitypedia.games.common.client;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import oauth.signpost.OAuthConsumer;
 import oauth.signpost.commonshttp.CommonsHttpOAuthConsumer;
 import oauth.signpost.exception.OAuthCommunicationException;
 import oauth.signpost.exception.OAuthExpectationFailedException;
 import oauth.signpost.exception.OAuthMessageSignerException;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpResponse;
+import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.DeflateInputStream;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.protocol.RequestAcceptEncoding;
 import org.apache.http.client.utils.HttpClientUtils;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.pool.PoolStats;
 import org.entitypedia.games.common.exceptions.ExceptionDetails;
 import org.entitypedia.games.common.exceptions.GameException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.net.ssl.SSLException;
 import java.io.*;
-import java.lang.reflect.Constructor;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.InvocationTargetException;
-import java.net.URLEncoder;
+import java.net.URI;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * A common ancestor class for all games clients.
@@ -41,6 +102,20 @@ public abstract class GamesCommonClient implements IGamesCommonClient {
      */
     private static final int COPY_BUFFER_SIZE = 16384;
 
+    /**
+     * How many bytes of a body are logged by default in debug mode.
+     */
+    public static final int DEFAULT_BODY_LOG_LIMIT = 4096;
+
+    /**
+     * How many latencies of an endpoint are needed before its requests are hedged.
+     */
+    private static final int MIN_HEDGE_SAMPLES = 20;
+
+    private static final String AFTERBURNER_MODULE_CLASS = "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+
+    private static final ExceptionRegistry EXCEPTIONS = new ExceptionRegistry();
+
     protected static final TypeReference<Integer> INTEGER_TYPE_REFERENCE = new TypeReference<Integer>() {
     };
     protected static final TypeReference<Long> LONG_TYPE_REFERENCE = new TypeReference<Long>() {
@@ -54,26 +129,153 @@ public abstract class GamesCommonClient implements IGamesCommonClient {
 
     protected String apiEndpoint = "http://localhost:9080/<game>/webapi/";
 
+    protected final GamesCommonClientConfig config;
+
     protected HttpClient hc;
 
+    /**
+     * Pool behind the default http client, null if the client was not created by {@link #createHttpClient}.
+     */
+    protected PoolingHttpClientConnectionManager connectionManager;
+
+    private ExecutorService executor;
+    private boolean ownExecutor;
+    private ScheduledExecutorService scheduler;
+
+    private volatile EndpointGroup endpointGroup;
+    private ScheduledFuture<?> healthChecks;
+
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+    // requests a scheduled deadline abort reaches, by request of the call: the request or its hedged copy which won
+    private final ConcurrentMap<HttpRequestBase, HttpRequestBase> abortTargets = new ConcurrentHashMap<>();
+
+    protected final ClientMetrics metrics = new ClientMetrics();
+    private ObjectName metricsName;
+
+    /**
+     * Non-blocking client for *Async methods. Created on first use.
+     */
+    protected CloseableHttpAsyncClient hac;
+
     protected final OAuthConsumer consumer;
+    protected final OAuthRequestSigner signer;
     protected final ObjectMapper mapper = new ObjectMapper();
+    private volatile ObjectCodecCache objectCodecs;
+    private final ConcurrentMap<WireFormat, ObjectCodecCache> binaryObjectCodecs = new ConcurrentHashMap<>();
+
+    private volatile WireFormat requestFormat = WireFormat.JSON;
+    private volatile WireFormat responseFormat = WireFormat.JSON;
 
     protected boolean signConnection = true;
 
+    protected volatile ResponseCache responseCache;
+    protected volatile RequestCoalescer requestCoalescer;
+    private volatile TrafficRecorder trafficRecorder;
+
+    private volatile int bodyLogLimit = DEFAULT_BODY_LOG_LIMIT;
+    private volatile int bodyLogSampling = 1;
+    private volatile Pattern bodyLogUrlPattern;
+    private final AtomicLong bodyLogCounter = new AtomicLong();
+
     public GamesCommonClient(String apiEndpoint, String uid, String password) {
+        this(apiEndpoint, uid, password, new GamesCommonClientConfig());
+    }
+
+    public GamesCommonClient(String apiEndpoint, String uid, String password, String token, String tokenSecret) {
+        this(apiEndpoint, uid, password, token, tokenSecret, new GamesCommonClientConfig());
+    }
+
+    public GamesCommonClient(String apiEndpoint, String uid, String password, GamesCommonClientConfig config) {
         this.apiEndpoint = apiEndpoint;
+        this.config = config;
         consumer = new CommonsHttpOAuthConsumer(uid, password);
+        signer = new OAuthRequestSigner(consumer);
         mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-        this.hc = HttpClients.createDefault();
+        this.hc = createHttpClient(config);
     }
 
-    public GamesCommonClient(String apiEndpoint, String uid, String password, String token, String tokenSecret) {
+    public GamesCommonClient(String apiEndpoint, String uid, String password, String token, String tokenSecret,
+                             GamesCommonClientConfig config) {
         this.apiEndpoint = apiEndpoint;
+        this.config = config;
         consumer = new CommonsHttpOAuthConsumer(uid, password);
         consumer.setTokenWithSecret(token, tokenSecret);
+        signer = new OAuthRequestSigner(consumer);
         mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-        this.hc = HttpClients.createDefault();
+        this.hc = createHttpClient(config);
+    }
+
+    /**
+     * Creates a pooled http client configured according to the config. Expired and idle connections are evicted
+     * by a daemon thread of the http client, which stops when the http client is closed.
+     *
+     * @param config connection settings
+     * @return http client
+     */
+    protected CloseableHttpClient createHttpClient(GamesCommonClientConfig config) {
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(config.getMaxConnectionsTotal());
+        connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+        connectionManager.setDefaultSocketConfig(SocketConfig.custom()
+                .setTcpNoDelay(config.getTcpNoDelay())
+                .setSoTimeout(config.getSocketTimeout())
+                .build());
+
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(createRequestConfig(config))
+                .setKeepAliveStrategy(createKeepAliveStrategy(config))
+                .setRequestExecutor(new TimingRequestExecutor())
+                // automatic retries would resend the same OAuth nonce, retries are done in executeRequest
+                .disableAutomaticRetries()
+                .evictExpiredConnections();
+        if (0 < config.getIdleConnectionTimeout()) {
+            builder.evictIdleConnections(config.getIdleConnectionTimeout(), TimeUnit.MILLISECONDS);
+        }
+        if (!config.getContentCompression()) {
+            builder.disableContentCompression();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates a non-blocking http client configured according to the config.
+     *
+     * @param config connection settings
+     * @return non-blocking http client, not started
+     */
+    protected CloseableHttpAsyncClient createHttpAsyncClient(GamesCommonClientConfig config) {
+        HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+                .setMaxConnTotal(config.getMaxConnectionsTotal())
+                .setMaxConnPerRoute(config.getMaxConnectionsPerRoute())
+                .setDefaultIOReactorConfig(IOReactorConfig.custom()
+                        .setTcpNoDelay(config.getTcpNoDelay())
+                        .setConnectTimeout(config.getConnectTimeout())
+                        .setSoTimeout(config.getSocketTimeout())
+                        .build())
+                .setDefaultRequestConfig(createRequestConfig(config))
+                .setKeepAliveStrategy(createKeepAliveStrategy(config));
+        if (config.getContentCompression()) {
+            // responses are decompressed in openContent, the non-blocking client does not do it
+            builder.addInterceptorLast(new RequestAcceptEncoding());
+        }
+        return builder.build();
+    }
+
+    private static RequestConfig createRequestConfig(GamesCommonClientConfig config) {
+        return RequestConfig.custom()
+                .setConnectTimeout(config.getConnectTimeout())
+                .setSocketTimeout(config.getSocketTimeout())
+                .setConnectionRequestTimeout(config.getConnectionRequestTimeout())
+                .build();
+    }
+
+    private static ConnectionKeepAliveStrategy createKeepAliveStrategy(final GamesCommonClientConfig config) {
+        return (response, context) -> {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return 0 < duration ? duration : config.getKeepAlive();
+        };
     }
 
     @Override
@@ -81,11 +283,130 @@ public abstract class GamesCommonClient implements IGamesCommonClient {
         return apiEndpoint;
     }
 
+    /**
+     * Sets api endpoint, replacing the endpoint group if there is one.
+     *
+     * @param apiEndpoint api endpoint
+     */
     @Override
-    public void setApiEndpoint(String apiEndpoint) {
+    public synchronized void setApiEndpoint(String apiEndpoint) {
+        setEndpointGroup(null);
         this.apiEndpoint = apiEndpoint;
     }
 
+    /**
+     * Returns the group requests are spread over, null if the client calls a single api endpoint.
+     *
+     * @return endpoint group or null
+     */
+    public EndpointGroup getEndpointGroup() {
+        return endpointGroup;
+    }
+
+    /**
+     * Spreads requests over the endpoints, with ejection settings from the config. The first endpoint becomes
+     * the api endpoint: urls built on it are sent to the endpoint chosen by the selector.
+     *
+     * @param endpoints api endpoint urls
+     * @param selector  endpoint selection policy
+     */
+    public void setEndpoints(List<String> endpoints, EndpointSelector selector) {
+        setEndpointGroup(new EndpointGroup(endpoints, selector,
+                config.getEndpointEjectionThreshold(), config.getEndpointEjectionTime()));
+    }
+
+    /**
+     * Spreads requests over the endpoint group, health checking it if the config has a health check path.
+     * The first endpoint of the group becomes the api endpoint: urls built on it are sent to the endpoint
+     * chosen by the group.
+     *
+     * @param endpointGroup endpoint group, null to call the api endpoint only
+     */
+    public synchronized void setEndpointGroup(EndpointGroup endpointGroup) {
+        if (null != healthChecks) {
+            healthChecks.cancel(false);
+            healthChecks = null;
+        }
+        this.endpointGroup = endpointGroup;
+        if (null != endpointGroup) {
+            apiEndpoint = endpointGroup.getEndpoints().get(0).getUrl();
+            if (null != config.getHealthCheckPath()) {
+                endpointGroup.setHealthChecked(true);
+                long interval = config.getHealthCheckInterval();
+                healthChecks = getScheduler().scheduleWithFixedDelay(() -> checkHealth(endpointGroup),
+                        interval, interval, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void checkHealth(final EndpointGroup group) {
+        for (final Endpoint endpoint : group.getEndpoints()) {
+            try {
+                getExecutor().execute(() -> {
+                    if (probe(endpoint)) {
+                        group.onSuccess(endpoint);
+                    } else {
+                        group.onFailure(endpoint);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                log.debug("Health check rejected: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Checks health of the endpoint with an unsigned GET of the health check path.
+     *
+     * @param endpoint endpoint to check
+     * @return true if the endpoint replied 200
+     */
+    protected boolean probe(Endpoint endpoint) {
+        int timeout = config.getHealthCheckTimeout();
+        HttpGet request = new HttpGet(endpoint.getUrl() + config.getHealthCheckPath());
+        request.setConfig(RequestConfig.custom()
+                .setConnectTimeout(timeout)
+                .setSocketTimeout(timeout)
+                .setConnectionRequestTimeout(timeout)
+                .build());
+        try {
+            HttpResponse response = hc.execute(request);
+            try {
+                return 200 == response.getStatusLine().getStatusCode();
+            } finally {
+                HttpClientUtils.closeQuietly(response);
+            }
+        } catch (IOException e) {
+            log.debug("Health check of " + endpoint + " failed: " + e);
+            return false;
+        } finally {
+            request.releaseConnection();
+        }
+    }
+
+    /**
+     * Sends the request to the endpoint chosen by the endpoint group, if the request url belongs to the group.
+     *
+     * @param request request
+     * @return chosen endpoint, null if the request is not routed
+     */
+    protected Endpoint route(HttpRequestBase request) {
+        EndpointGroup group = endpointGroup;
+        if (null == group) {
+            return null;
+        }
+        String url = request.getURI().toString();
+        Endpoint current = group.find(url);
+        if (null == current) {
+            return null;
+        }
+        Endpoint result = group.select();
+        if (result != current) {
+            request.setURI(URI.create(result.getUrl() + url.substring(current.getUrl().length())));
+        }
+        return result;
+    }
+
     @Override
     public boolean getSignConnection() {
         return signConnection;
@@ -96,435 +417,1952 @@ public abstract class GamesCommonClient implements IGamesCommonClient {
         this.signConnection = signConnection;
     }
 
-    public HttpClient getHttpClient() {
-        return hc;
+    @Override
+    public ConnectionPoolStats getConnectionPoolStats() {
+        if (null == connectionManager) {
+            return null;
+        }
+        PoolStats stats = connectionManager.getTotalStats();
+        return new ConnectionPoolStats(stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax());
     }
 
-    public void setHttpClient(HttpClient hc) {
-        this.hc = hc;
+    /**
+     * Returns the response cache used by doSimpleGet, null if caching is off.
+     *
+     * @return response cache or null
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
     }
 
-    @SuppressWarnings("unchecked")
-    public static RuntimeException processError(InputStream errorStream, ObjectMapper mapper) throws IOException {
-        log.debug("Processing error...");
-        InputStream err = null;
+    /**
+     * Sets the response cache used by doSimpleGet. Null turns caching off.
+     * Objects returned from the cache are shared between callers and must not be modified.
+     *
+     * @param responseCache response cache or null
+     */
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Returns request coalescing flag.
+     *
+     * @return request coalescing flag
+     */
+    public boolean getCoalesceRequests() {
+        return null != requestCoalescer;
+    }
+
+    /**
+     * Sets request coalescing flag. If true, concurrent doSimpleGet calls with the same url, type and
+     * credentials share one request and one decoded result, or the same exception.
+     * Shared results must not be modified.
+     *
+     * @param coalesceRequests request coalescing flag
+     */
+    public void setCoalesceRequests(boolean coalesceRequests) {
+        if (coalesceRequests != getCoalesceRequests()) {
+            requestCoalescer = coalesceRequests ? new RequestCoalescer() : null;
+        }
+    }
+
+    /**
+     * Returns the request coalescer, null if coalescing is off.
+     *
+     * @return request coalescer or null
+     */
+    public RequestCoalescer getRequestCoalescer() {
+        return requestCoalescer;
+    }
+
+    /**
+     * Returns the traffic recorder, null if recording is off.
+     *
+     * @return traffic recorder or null
+     */
+    public TrafficRecorder getTrafficRecorder() {
+        return trafficRecorder;
+    }
+
+    /**
+     * Sets the recorder which captures requests and responses of all calls, null turns recording off.
+     * While recording, responses are read into memory before they are decoded. The recorder is not closed
+     * by the client.
+     *
+     * @param trafficRecorder traffic recorder or null
+     */
+    public void setTrafficRecorder(TrafficRecorder trafficRecorder) {
+        this.trafficRecorder = trafficRecorder;
+    }
+
+    /**
+     * Returns the executor for background work, creating a pool of daemon threads on first use.
+     *
+     * @return executor
+     */
+    public synchronized ExecutorService getExecutor() {
+        if (null == executor) {
+            executor = Executors.newCachedThreadPool(new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "games-client-worker-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            ownExecutor = true;
+        }
+        return executor;
+    }
+
+    /**
+     * Sets the executor for background work. Executor set this way is not shut down on close.
+     *
+     * @param executor executor
+     */
+    public synchronized void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+        this.ownExecutor = false;
+    }
+
+    /**
+     * Returns the scheduler for delayed work, such as retries and hedged requests, creating a daemon thread
+     * on first use.
+     *
+     * @return scheduler
+     */
+    protected synchronized ScheduledExecutorService getScheduler() {
+        if (null == scheduler) {
+            ScheduledThreadPoolExecutor result = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r, "games-client-scheduler");
+                t.setDaemon(true);
+                return t;
+            });
+            result.setRemoveOnCancelPolicy(true);
+            scheduler = result;
+        }
+        return scheduler;
+    }
+
+    @Override
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Registers client metrics in the platform MBean server under
+     * {@code org.entitypedia.games.common.client:type=ClientMetrics,name=<name>}. The registration is
+     * removed when the client is closed.
+     *
+     * @param name name distinguishing this client
+     * @throws GameException if the metrics cannot be registered
+     */
+    public synchronized void registerMetrics(String name) throws GameException {
+        unregisterMetrics();
         try {
-            if (log.isDebugEnabled()) {
-                byte[] buffer = inputStreamToByteArray(errorStream);
-                String response = new String(buffer, StandardCharsets.UTF_8);
-                log.debug("Response:\n" + response + "\n");
-                err = new ByteArrayInputStream(buffer);
-            } else {
-                err = new BufferedInputStream(errorStream);
+            ObjectName objectName = new ObjectName("org.entitypedia.games.common.client:type=ClientMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName);
+            metricsName = objectName;
+        } catch (JMException e) {
+            throw new GameException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Removes client metrics from the platform MBean server, if they were registered.
+     */
+    public synchronized void unregisterMetrics() {
+        if (null != metricsName) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(metricsName);
+            } catch (JMException e) {
+                log.warn("Cannot unregister metrics: " + e.getMessage(), e);
             }
+            metricsName = null;
+        }
+    }
 
-            ExceptionDetails details = mapper.readValue(err, ExceptionDetails.class);
-            if (null != details) {
-                Class clazz = GameException.class;
-                try {
-                    clazz = Class.forName(details.getExceptionClass());
-                } catch (ClassNotFoundException e) {
-                    log.debug("Exception class not found: " + details.getExceptionClass());
-                }
+    /**
+     * Returns circuit breakers of the endpoints called so far, empty if circuit breakers are off.
+     *
+     * @return circuit breakers
+     */
+    public Collection<CircuitBreaker> getCircuitBreakers() {
+        return Collections.unmodifiableCollection(circuitBreakers.values());
+    }
 
-                if (GameException.class.isAssignableFrom(clazz)) {
-                    Constructor<? extends GameException> paramConstructor = null;
-                    Constructor<? extends GameException> stringConstructor = null;
-                    try {
-                        paramConstructor = clazz.getConstructor(Object[].class);
-                    } catch (NoSuchMethodException e) {
-                        log.debug("Cannot find paramConstructor for class: " + clazz.getName());
-                    }
-                    if (null == paramConstructor) {
-                        try {
-                            stringConstructor = clazz.getConstructor(String.class);
-                        } catch (NoSuchMethodException e) {
-                            log.debug("Cannot find stringConstructor for class: " + clazz.getName());
-                        }
-                    }
+    /**
+     * Returns how many bytes of a response body are logged in debug mode.
+     *
+     * @return body log limit
+     */
+    public int getBodyLogLimit() {
+        return bodyLogLimit;
+    }
 
-                    GameException ce = null;
-                    try {
-                        if (null != paramConstructor) {
-                            Object arg = details.getParams();
-                            ce = paramConstructor.newInstance(arg);
-                        } else if (null != stringConstructor) {
-                            ce = stringConstructor.newInstance(details.getErrorMessage());
-                        }
-                    } catch (InstantiationException | InvocationTargetException | IllegalAccessException e) {
-                        throw new GameException(e.getMessage(), e);
-                    }
-                    return ce;
-                } else if (Throwable.class.isAssignableFrom(clazz)) {
-                    Constructor<? extends Throwable> stringConstructor;
-                    try {
-                        stringConstructor = clazz.getConstructor(String.class);
-                    } catch (NoSuchMethodException e) {
-                        return new GameException("Cannot find String constructor for exception: " + clazz.getName(), e);
-                    }
+    /**
+     * Sets how many bytes of a response body are logged in debug mode.
+     *
+     * @param bodyLogLimit body log limit
+     */
+    public void setBodyLogLimit(int bodyLogLimit) {
+        this.bodyLogLimit = bodyLogLimit;
+    }
 
-                    Throwable t;
-                    try {
-                        t = stringConstructor.newInstance(details.getErrorMessage());
-                    } catch (InstantiationException | InvocationTargetException | IllegalAccessException e) {
-                        throw new GameException(e.getMessage(), e);
-                    }
+    /**
+     * Returns body log sampling: one in how many response bodies is logged in debug mode.
+     *
+     * @return body log sampling
+     */
+    public int getBodyLogSampling() {
+        return bodyLogSampling;
+    }
 
-                    if (RuntimeException.class.isAssignableFrom(clazz)) {
-                        return (RuntimeException) t;
-                    } else {
-                        return new GameException(details.getErrorMessage(), t);
-                    }
-                } else {
-                    return new GameException(details.getExceptionClass() + " is not assignable from Throwable");
-                }
-            } else {
-                return new GameException("Unable to parse error details");
+    /**
+     * Sets body log sampling: one in how many response bodies is logged in debug mode. 1 logs all bodies.
+     *
+     * @param bodyLogSampling body log sampling
+     */
+    public void setBodyLogSampling(int bodyLogSampling) {
+        this.bodyLogSampling = bodyLogSampling;
+    }
+
+    /**
+     * Returns the pattern urls should contain for their response bodies to be logged, null for all urls.
+     *
+     * @return body log url pattern or null
+     */
+    public Pattern getBodyLogUrlPattern() {
+        return bodyLogUrlPattern;
+    }
+
+    /**
+     * Sets the pattern urls should contain for their response bodies to be logged in debug mode, null for all urls.
+     *
+     * @param bodyLogUrlPattern body log url pattern or null
+     */
+    public void setBodyLogUrlPattern(Pattern bodyLogUrlPattern) {
+        this.bodyLogUrlPattern = bodyLogUrlPattern;
+    }
+
+    /**
+     * Returns cached readers and writers of the mapper, creating them on first use, so that subclasses can
+     * configure the mapper in their constructors. Readers for the common types are resolved upfront.
+     *
+     * @return object codec cache
+     */
+    public ObjectCodecCache getObjectCodecs() {
+        ObjectCodecCache result = objectCodecs;
+        if (null == result) {
+            result = new ObjectCodecCache(mapper);
+            result.reader(INTEGER_TYPE_REFERENCE);
+            result.reader(LONG_TYPE_REFERENCE);
+            result.reader(DATE_TYPE_REFERENCE);
+            result.reader(BOOLEAN_TYPE_REFERENCE);
+            result.reader(DOUBLE_TYPE_REFERENCE);
+            result.reader(ExceptionDetails.class);
+            objectCodecs = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns cached readers and writers for the wire format, sharing the mapper configuration.
+     *
+     * @param format wire format
+     * @return object codec cache
+     */
+    public ObjectCodecCache getObjectCodecs(WireFormat format) {
+        if (WireFormat.JSON == format) {
+            return getObjectCodecs();
+        }
+        ObjectCodecCache result = binaryObjectCodecs.get(format);
+        if (null == result) {
+            result = new ObjectCodecCache(mapper, format.createFactory());
+            ObjectCodecCache existing = binaryObjectCodecs.putIfAbsent(format, result);
+            if (null != existing) {
+                result = existing;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops cached readers and writers. Should be called after the mapper is reconfigured.
+     */
+    public void resetObjectCodecs() {
+        objectCodecs = null;
+        binaryObjectCodecs.clear();
+    }
+
+    /**
+     * Returns wire format of request bodies.
+     *
+     * @return request wire format
+     */
+    public WireFormat getRequestFormat() {
+        return requestFormat;
+    }
+
+    /**
+     * Sets wire format of request bodies. Should be set to a binary format only if the server accepts it.
+     *
+     * @param requestFormat request wire format
+     */
+    public void setRequestFormat(WireFormat requestFormat) {
+        this.requestFormat = requestFormat;
+    }
+
+    /**
+     * Returns preferred wire format of response bodies.
+     *
+     * @return preferred response wire format
+     */
+    public WireFormat getResponseFormat() {
+        return responseFormat;
+    }
+
+    /**
+     * Sets preferred wire format of response bodies. A binary format is advertised in Accept header along with JSON;
+     * responses are decoded according to their content type, so servers which reply in JSON keep working.
+     *
+     * @param responseFormat preferred response wire format
+     */
+    public void setResponseFormat(WireFormat responseFormat) {
+        this.responseFormat = responseFormat;
+    }
+
+    /**
+     * Turns on bytecode-generated (de)serializers for bean classes, provided by Jackson Afterburner module,
+     * which should be on the classpath. Should be called before the client is used concurrently.
+     *
+     * @throws GameException if Afterburner module is not available
+     */
+    public void enableFastDatabind() throws GameException {
+        try {
+            Class<?> moduleClass = Class.forName(AFTERBURNER_MODULE_CLASS);
+            mapper.registerModule((Module) moduleClass.getDeclaredConstructor().newInstance());
+        } catch (ClassNotFoundException | NoSuchMethodException | InstantiationException | IllegalAccessException
+                | InvocationTargetException e) {
+            throw new GameException("Cannot enable fast databind, is jackson-module-afterburner on the classpath? " + e.getMessage(), e);
+        }
+        resetObjectCodecs();
+    }
+
+    public HttpClient getHttpClient() {
+        return hc;
+    }
+
+    /**
+     * Sets the http client. The replaced http client is closed if it was created by this client.
+     *
+     * @param hc http client
+     */
+    public void setHttpClient(HttpClient hc) {
+        HttpClient replaced = this.hc;
+        boolean owned = null != connectionManager;
+        this.hc = hc;
+        this.connectionManager = null;
+        if (owned && replaced != hc) {
+            HttpClientUtils.closeQuietly(replaced);
+        }
+    }
+
+    /**
+     * Returns the non-blocking client used by the *Async methods, creating and starting a default one on first use.
+     *
+     * @return non-blocking http client
+     */
+    public synchronized CloseableHttpAsyncClient getHttpAsyncClient() {
+        if (null == hac) {
+            hac = createHttpAsyncClient(config);
+        }
+        if (!hac.isRunning()) {
+            hac.start();
+        }
+        return hac;
+    }
+
+    public synchronized void setHttpAsyncClient(CloseableHttpAsyncClient hac) {
+        this.hac = hac;
+    }
+
+    @Override
+    public void close() throws IOException {
+        CloseableHttpAsyncClient asyncClient;
+        synchronized (this) {
+            asyncClient = hac;
+            hac = null;
+            if (ownExecutor) {
+                executor.shutdownNow();
+                executor = null;
+                ownExecutor = false;
+            }
+            if (null != scheduler) {
+                scheduler.shutdownNow();
+                scheduler = null;
+            }
+        }
+        if (null != asyncClient) {
+            asyncClient.close();
+        }
+        unregisterMetrics();
+        if (hc instanceof Closeable) {
+            ((Closeable) hc).close();
+        }
+    }
+
+    /**
+     * Returns the registry mapping error details to exceptions, shared by all clients. Subclasses may register
+     * their exceptions or custom factories in it.
+     *
+     * @return exception registry
+     */
+    protected static ExceptionRegistry getExceptionRegistry() {
+        return EXCEPTIONS;
+    }
+
+    public static RuntimeException processError(InputStream errorStream, ObjectMapper mapper) throws IOException {
+        return processError(errorStream, mapper.readerFor(ExceptionDetails.class));
+    }
+
+    protected static RuntimeException processError(InputStream errorStream, ObjectReader detailsReader) throws IOException {
+        log.debug("Processing error...");
+        InputStream err = null;
+        try {
+            if (log.isDebugEnabled()) {
+                err = new LoggingInputStream(new BufferedInputStream(errorStream), log, "Response:\n", DEFAULT_BODY_LOG_LIMIT);
+            } else {
+                err = new BufferedInputStream(errorStream);
+            }
+
+            ExceptionDetails details = detailsReader.readValue(err);
+            if (null != details) {
+                return EXCEPTIONS.create(details);
+            } else {
+                return new GameException("Unable to parse error details");
+            }
+        } finally {
+            if (null != err) {
+                err.close();
+            }
+        }
+    }
+
+    /**
+     * Appends page size and page number parameters to the url.
+     *
+     * @param url      url
+     * @param pageSize page size, may be null
+     * @param pageNo   page number, may be null
+     * @return url with parameters
+     */
+    public static String addPageSizeAndNo(String url, Integer pageSize, Integer pageNo) {
+        return addPageSizeAndNoAndFilterAndOrder(url, pageSize, pageNo, null, null);
+    }
+
+    /**
+     * Appends page size, page number and filter parameters to the url. Filter is encoded, it should not be
+     * encoded by the caller.
+     *
+     * @param url      url
+     * @param pageSize page size, may be null
+     * @param pageNo   page number, may be null
+     * @param filter   filter, may be null
+     * @return url with parameters
+     */
+    public static String addPageSizeAndNoAndFilter(String url, Integer pageSize, Integer pageNo, String filter) {
+        return addPageSizeAndNoAndFilterAndOrder(url, pageSize, pageNo, filter, null);
+    }
+
+    /**
+     * Appends page size, page number, filter and order parameters to the url. Filter and order are encoded,
+     * they should not be encoded by the caller.
+     *
+     * @param url      url
+     * @param pageSize page size, may be null
+     * @param pageNo   page number, may be null
+     * @param filter   filter, may be null
+     * @param order    order, may be null
+     * @return url with parameters
+     */
+    public static String addPageSizeAndNoAndFilterAndOrder(String url, Integer pageSize, Integer pageNo, String filter, String order) {
+        return new UrlBuilder(url).page(pageSize, pageNo).param("filter", filter).param("order", order).toString();
+    }
+
+    /**
+     * Expands an endpoint template after the api endpoint.
+     *
+     * @param template endpoint template
+     * @param values   placeholder values
+     * @return url builder to add query parameters
+     */
+    protected UrlBuilder url(EndpointTemplate template, Object... values) {
+        return template.expand(apiEndpoint, values);
+    }
+
+    /**
+     * Returns a lazy iterator over all items of a paged listing, with default page size and prefetch depth.
+     *
+     * @param url    listing url
+     * @param filter filter, may be null
+     * @param order  order, may be null
+     * @param type   type of a page
+     * @param <T>    type of the items
+     * @return iterator over all items
+     */
+    protected <T> PageIterator<T> iteratePages(String url, String filter, String order, TypeReference<List<T>> type) {
+        return iteratePages(url, filter, order, type, config.getPageSize(), config.getPrefetchPages());
+    }
+
+    /**
+     * Returns a lazy iterator over all items of a paged listing. Next pages are fetched in background while
+     * the current one is consumed. Iteration stops after a short or empty page. Filter and order are encoded.
+     *
+     * @param url      listing url
+     * @param filter   filter, may be null
+     * @param order    order, may be null
+     * @param type     type of a page
+     * @param pageSize page size
+     * @param prefetch how many pages to fetch ahead, 0 to fetch on demand
+     * @param <T>      type of the items
+     * @return iterator over all items
+     */
+    protected <T> PageIterator<T> iteratePages(final String url, final String filter, final String order,
+                                               final TypeReference<List<T>> type, final int pageSize, int prefetch) {
+        return new PageIterator<>(
+                pageNo -> doSimpleGet(addPageSizeAndNoAndFilterAndOrder(url, pageSize, pageNo, filter, order), type),
+                pageSize, config.getFirstPageNo(), prefetch, 0 < prefetch ? getExecutor() : null);
+    }
+
+    /**
+     * Returns a lazy sequential stream over all items of a paged listing.
+     * Stream should be closed if not consumed to the end.
+     *
+     * @param url      listing url
+     * @param filter   filter, may be null
+     * @param order    order, may be null
+     * @param type     type of a page
+     * @param pageSize page size
+     * @param prefetch how many pages to fetch ahead, 0 to fetch on demand
+     * @param <T>      type of the items
+     * @return stream of all items
+     */
+    protected <T> Stream<T> streamPages(String url, String filter, String order, TypeReference<List<T>> type, int pageSize, int prefetch) {
+        PageIterator<T> iterator = iteratePages(url, filter, order, type, pageSize, prefetch);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * Converts an InputStream instance into a byte[].
+     *
+     * @param is InputStream instance
+     * @return byte[]
+     * @throws IOException IOException
+     */
+    protected static byte[] inputStreamToByteArray(InputStream is) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        int nRead;
+        byte[] data = new byte[COPY_BUFFER_SIZE];
+
+        while ((nRead = is.read(data, 0, data.length)) != -1) {
+            buffer.write(data, 0, nRead);
+        }
+
+        buffer.flush();
+
+        return buffer.toByteArray();
+    }
+
+    protected String encodeURL(String string) {
+        if (null == string) {
+            return null;
+        } else {
+            return UrlBuilder.encode(string);
+        }
+    }
+
+    protected void doEmptyGet(String url) throws GameException {
+        log.debug("GETting url: " + url);
+        execute(new HttpGet(url), null);
+    }
+
+    protected <T> T doSimpleGet(final String url, final TypeReference<T> type) throws GameException {
+        log.debug("GETting url: " + url);
+        RequestCoalescer coalescer = requestCoalescer;
+        if (null != coalescer) {
+            String identity = signConnection ? signer.getIdentity() : null;
+            return coalescer.execute(identity, url, type.getType(), () -> executeGet(url, type));
+        }
+        return executeGet(url, type);
+    }
+
+    private <T> T executeGet(String url, TypeReference<T> type) throws GameException {
+        if (null != responseCache) {
+            return executeCachedGet(url, type);
+        }
+        return execute(new HttpGet(url), type);
+    }
+
+    protected void doSimplePost(String url) throws GameException {
+        log.debug("POSTing url: " + url);
+        execute(new HttpPost(url), null);
+    }
+
+    protected void doPostObject(String url, Object object) throws GameException {
+        log.debug("POSTing object: " + url);
+        execute(createObjectPost(url, object), null);
+    }
+
+    protected <T> T doPostReadObject(String url, Object object, TypeReference<T> type) throws GameException {
+        log.debug("POSTing object: " + url);
+        return execute(createObjectPost(url, object), type);
+    }
+
+    protected <T> T doPostRead(String url, TypeReference<T> type) throws GameException {
+        log.debug("POSTing url: " + url);
+        return execute(createEmptyPost(url), type);
+    }
+
+    /**
+     * GETs a JSON array and passes its elements to the consumer one by one, while the response is being read.
+     *
+     * @param url         url to get
+     * @param elementType type of an array element
+     * @param consumer    consumer of the elements
+     * @param <T>         type of an array element
+     * @throws GameException GameException
+     */
+    protected <T> void doSimpleGetEach(String url, TypeReference<T> elementType, Consumer<? super T> consumer) throws GameException {
+        log.debug("GETting url: " + url);
+        try (JsonArrayIterator<T> elements = executeStreaming(new HttpGet(url), elementType)) {
+            while (elements.hasNext()) {
+                consumer.accept(elements.next());
+            }
+        }
+    }
+
+    /**
+     * GETs a JSON array as a lazy stream of its elements, decoded while the response is being read.
+     * The stream must be closed if it is not consumed to the end, to release the connection.
+     *
+     * @param url         url to get
+     * @param elementType type of an array element
+     * @param <T>         type of an array element
+     * @return stream of array elements
+     * @throws GameException GameException
+     */
+    protected <T> Stream<T> doSimpleGetStream(String url, TypeReference<T> elementType) throws GameException {
+        log.debug("GETting url: " + url);
+        return toStream(executeStreaming(new HttpGet(url), elementType));
+    }
+
+    /**
+     * POSTs an object and passes the elements of the JSON array in response to the consumer one by one.
+     *
+     * @param url         url to post to
+     * @param object      object to post
+     * @param elementType type of an array element
+     * @param consumer    consumer of the elements
+     * @param <T>         type of an array element
+     * @throws GameException GameException
+     */
+    protected <T> void doPostReadObjectEach(String url, Object object, TypeReference<T> elementType, Consumer<? super T> consumer) throws GameException {
+        log.debug("POSTing object: " + url);
+        try (JsonArrayIterator<T> elements = executeStreaming(createObjectPost(url, object), elementType)) {
+            while (elements.hasNext()) {
+                consumer.accept(elements.next());
+            }
+        }
+    }
+
+    /**
+     * POSTs an object and returns the JSON array in response as a lazy stream of its elements.
+     * The stream must be closed if it is not consumed to the end, to release the connection.
+     *
+     * @param url         url to post to
+     * @param object      object to post
+     * @param elementType type of an array element
+     * @param <T>         type of an array element
+     * @return stream of array elements
+     * @throws GameException GameException
+     */
+    protected <T> Stream<T> doPostReadObjectStream(String url, Object object, TypeReference<T> elementType) throws GameException {
+        log.debug("POSTing object: " + url);
+        return toStream(executeStreaming(createObjectPost(url, object), elementType));
+    }
+
+    protected CompletableFuture<Void> doEmptyGetAsync(String url) {
+        log.debug("GETting url asynchronously: " + url);
+        return executeAsync(new HttpGet(url), null);
+    }
+
+    protected <T> CompletableFuture<T> doSimpleGetAsync(String url, TypeReference<T> type) {
+        log.debug("GETting url asynchronously: " + url);
+        return executeAsync(new HttpGet(url), type);
+    }
+
+    protected CompletableFuture<Void> doSimplePostAsync(String url) {
+        log.debug("POSTing url asynchronously: " + url);
+        return executeAsync(new HttpPost(url), null);
+    }
+
+    protected CompletableFuture<Void> doPostObjectAsync(String url, Object object) {
+        log.debug("POSTing object asynchronously: " + url);
+        return executeAsync(createObjectPost(url, object), null);
+    }
+
+    protected <T> CompletableFuture<T> doPostReadObjectAsync(String url, Object object, TypeReference<T> type) {
+        log.debug("POSTing object asynchronously: " + url);
+        return executeAsync(createObjectPost(url, object), type);
+    }
+
+    protected <T> CompletableFuture<T> doPostReadAsync(String url, TypeReference<T> type) {
+        log.debug("POSTing url asynchronously: " + url);
+        return executeAsync(createEmptyPost(url), type);
+    }
+
+    /**
+     * Executes a batch of independent calls, at most {@link GamesCommonClientConfig#getBatchConcurrency()}
+     * at a time.
+     *
+     * @param requests calls to execute
+     * @param timeout  deadline for the whole batch in milliseconds, zero or less for no deadline
+     * @param <T>      type of the response objects
+     * @return results in the order of requests
+     * @see #executeBatch(Collection, int, long)
+     */
+    protected <T> List<BatchResult<T>> executeBatch(Collection<? extends BatchRequest<? extends T>> requests, long timeout) {
+        return executeBatch(requests, config.getBatchConcurrency(), timeout);
+    }
+
+    /**
+     * Executes a batch of independent calls on the executor, at most {@code concurrency} at a time.
+     * Each call gets its own result: the response object or the GameException it failed with.
+     * GETs with a response type are executed as {@link #doSimpleGet} calls, using the response cache
+     * and request coalescing, other calls are created by {@link #createRequest(BatchRequest)}.
+     * When the deadline passes, calls which have not started are not started, calls in flight are aborted,
+     * and both get a GameException result; the method returns without waiting for them. The {@link Deadline}
+     * of the calling thread applies too, if it is earlier.
+     *
+     * @param requests    calls to execute
+     * @param concurrency maximum number of calls in flight
+     * @param timeout     deadline for the whole batch in milliseconds, zero or less for no deadline
+     * @param <T>         type of the response objects
+     * @return results in the order of requests
+     */
+    protected <T> List<BatchResult<T>> executeBatch(Collection<? extends BatchRequest<? extends T>> requests, int concurrency, long timeout) {
+        log.debug("Executing batch of " + requests.size() + " requests");
+        if (requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return new BatchExecution<T>(this, new ArrayList<>(requests)).execute(getExecutor(), concurrency, timeout);
+    }
+
+    /**
+     * Creates a request from its batch descriptor.
+     *
+     * @param request request descriptor
+     * @return request
+     * @throws GameException GameException
+     */
+    protected HttpRequestBase createRequest(BatchRequest<?> request) throws GameException {
+        switch (request.getMethod()) {
+            case GET:
+                log.debug("GETting url: " + request.getUrl());
+                return new HttpGet(request.getUrl());
+            case POST:
+                if (null == request.getBody()) {
+                    log.debug("POSTing url: " + request.getUrl());
+                    return null == request.getType() ? new HttpPost(request.getUrl()) : createEmptyPost(request.getUrl());
+                }
+                log.debug("POSTing object: " + request.getUrl());
+                return createObjectPost(request.getUrl(), request.getBody());
+            default:
+                throw new GameException("Unsupported method: " + request.getMethod());
+        }
+    }
+
+    /**
+     * Creates a POST request without body, declaring JSON content type.
+     *
+     * @param url url to post to
+     * @return POST request
+     */
+    protected HttpPost createEmptyPost(String url) {
+        HttpPost request = new HttpPost(url);
+        request.setHeader("Content-Type", "application/json");
+        return request;
+    }
+
+    /**
+     * Creates a POST request with the object serialized in the body, in the request wire format.
+     *
+     * @param url    url to post to
+     * @param object object to post
+     * @return POST request
+     * @throws GameException if object cannot be serialized
+     */
+    protected HttpPost createObjectPost(String url, Object object) throws GameException {
+        WireFormat format = requestFormat;
+        HttpPost request = new HttpPost(url);
+        request.setHeader("Content-Type", format.getContentType());
+        try {
+            request.setEntity(createObjectEntity(getObjectCodecs(format).writerFor(object), object));
+        } catch (IOException e) {
+            throw new GameException(e.getMessage(), e);
+        }
+        return request;
+    }
+
+    /**
+     * Creates request entity for the object. Bodies up to the streaming threshold are serialized into a reused
+     * buffer and sent with a fixed length, larger ones are serialized straight to the connection in chunks.
+     * The size of a body is not known in advance, so a larger body is serialized up to the streaming threshold
+     * before it turns out to be too large, and then again while it is sent; the extra work is bounded by
+     * the threshold. Bodies from the compression threshold are gzipped, streamed bodies only if the compression
+     * threshold is not above the streaming threshold, as their exact size is unknown. Bodies are not form-encoded,
+     * so they are not a part of OAuth signature and may be compressed or streamed.
+     *
+     * @param writer writer to serialize the object with
+     * @param object object to send
+     * @return request entity
+     * @throws IOException IOException
+     */
+    protected HttpEntity createObjectEntity(ObjectWriter writer, Object object) throws IOException {
+        int compressionThreshold = config.getRequestCompressionThreshold();
+        int streamingThreshold = config.getRequestStreamingThreshold();
+        byte[] body = ObjectEntity.toBytes(writer, object, streamingThreshold);
+        if (null != body) {
+            if (0 <= compressionThreshold && compressionThreshold <= body.length) {
+                ByteArrayEntity entity = new ByteArrayEntity(gzip(body));
+                entity.setContentEncoding("gzip");
+                return entity;
+            }
+            return new ByteArrayEntity(body);
+        }
+
+        // a streamed body is larger than the streaming threshold
+        return new ObjectEntity(writer, object, 0 <= compressionThreshold && compressionThreshold <= Math.max(0, streamingThreshold));
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer, COPY_BUFFER_SIZE)) {
+            out.write(data);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Adds common headers and signs the request, if signing is on.
+     *
+     * @param request request to prepare
+     * @throws OAuthMessageSignerException     OAuthMessageSignerException
+     * @throws OAuthExpectationFailedException OAuthExpectationFailedException
+     * @throws OAuthCommunicationException     OAuthCommunicationException
+     */
+    protected void prepareRequest(HttpRequestBase request) throws OAuthMessageSignerException, OAuthExpectationFailedException, OAuthCommunicationException {
+        // set, not added: retries and hedged copies are prepared again
+        request.setHeader("Accept-Charset", StandardCharsets.UTF_8.name());
+        if (WireFormat.JSON != responseFormat) {
+            request.setHeader("Accept", responseFormat.getContentType() + ", " + WireFormat.JSON.getContentType() + ";q=0.9");
+        }
+        if (signConnection) {
+            signer.sign(request);
+        }
+    }
+
+    /**
+     * Executes the request and reads the response.
+     *
+     * @param request request to execute
+     * @param type    type of the response object, null if no response body is expected
+     * @param <T>     type of the response object
+     * @return response object or null if type is null
+     * @throws GameException GameException
+     */
+    protected <T> T execute(HttpRequestBase request, TypeReference<T> type) throws GameException {
+        RequestEvent event = startEvent(request);
+        Deadline deadline = Deadline.current();
+        ScheduledFuture<?> abort = null;
+        try {
+            abort = scheduleAbort(request, deadline);
+            try {
+                HttpResponse response = executeRequest(request, true, event);
+                long decodeStart = System.nanoTime();
+                try {
+                    return processResponse(request, response, type);
+                } finally {
+                    event.setDecodeTime(System.nanoTime() - decodeStart);
+                    HttpClientUtils.closeQuietly(response);
+                }
+            } finally {
+                request.releaseConnection();
+            }
+        } catch (OAuthExpectationFailedException | OAuthCommunicationException | OAuthMessageSignerException | IOException e) {
+            throw event.setError(toGameException(request, e, deadline));
+        } catch (RuntimeException e) {
+            throw event.setError(e);
+        } finally {
+            cancelAbort(request, abort);
+            finishEvent(event);
+        }
+    }
+
+    /**
+     * Signs and sends the request and returns the response. Idempotent requests are retried after I/O errors
+     * and 502, 503 and 504 responses with jittered exponential backoff, and are signed anew for each attempt.
+     * Calls to an endpoint fail fast while its circuit breaker is open. If the current thread has a {@link Deadline},
+     * timeouts of each attempt are cut to the time left and no retry is made which would not fit before it.
+     * The caller must close the response and release the request connection.
+     *
+     * @param request request to send
+     * @param hedge   whether a GET may be hedged, the response must not be bound to the request then
+     * @param event   measurements of the call, attempts and bytes are accounted in it
+     * @return response
+     * @throws IOException                     IOException
+     * @throws OAuthMessageSignerException     OAuthMessageSignerException
+     * @throws OAuthExpectationFailedException OAuthExpectationFailedException
+     * @throws OAuthCommunicationException     OAuthCommunicationException
+     * @throws CircuitBreakerOpenException     if the circuit breaker of the endpoint is open
+     * @throws DeadlineExceededException       if the deadline passed before an attempt
+     */
+    protected HttpResponse executeRequest(HttpRequestBase request, boolean hedge, RequestEvent event)
+            throws IOException, OAuthMessageSignerException, OAuthExpectationFailedException, OAuthCommunicationException {
+        countRequestBytes(request, event);
+        int retries = isIdempotent(request) ? config.getMaxRetries() : 0;
+        Deadline deadline = Deadline.current();
+        RequestConfig requestConfig = null == request.getConfig() ? createRequestConfig(config) : request.getConfig();
+        for (int attempt = 0; ; attempt++) {
+            if (null != deadline) {
+                long remaining = deadline.getRemaining(TimeUnit.MILLISECONDS);
+                if (0 >= remaining) {
+                    throw deadlineExceeded(request, null);
+                }
+                request.setConfig(limitTimeouts(requestConfig, remaining));
+            }
+            HttpResponse response;
+            RequestTimings timings = new RequestTimings();
+            timings.bytesReceived = event::addBytesReceived;
+            HttpClientContext context = HttpClientContext.create();
+            context.setAttribute(RequestTimings.ATTRIBUTE, timings);
+            long start = System.nanoTime();
+            try {
+                long hedgeDelay = hedge ? getHedgeDelay(request) : -1;
+                response = 0 <= hedgeDelay ? sendHedged(request, hedgeDelay, context) : send(request, context);
+            } catch (IOException e) {
+                event.addAttempt(timings);
+                if (attempt >= retries || request.isAborted() || !isRetryable(e)) {
+                    throw e;
+                }
+                long delay = getRetryDelay(attempt);
+                if (!isBefore(deadline, delay)) {
+                    throw e;
+                }
+                log.debug("Retrying " + request.getURI() + " after " + e);
+                sleep(delay);
+                continue;
+            }
+            event.addAttempt(timings);
+            event.setStatus(response.getStatusLine().getStatusCode());
+            if (attempt < retries && isRetryable(response.getStatusLine().getStatusCode())) {
+                long delay = getRetryDelay(attempt);
+                if (isBefore(deadline, delay)) {
+                    log.debug("Retrying " + request.getURI() + " after " + response.getStatusLine());
+                    HttpClientUtils.closeQuietly(response);
+                    sleep(delay);
+                    continue;
+                }
+            }
+            // counted first, the recorder replaces the body with a decoded copy
+            if (!timings.bytesCounted) {
+                countResponseBytes(response, event);
+            }
+            TrafficRecorder recorder = trafficRecorder;
+            if (null != recorder) {
+                try {
+                    recorder.record(request, getRelativeUrl(request), response, System.nanoTime() - start);
+                } catch (IOException e) {
+                    HttpClientUtils.closeQuietly(response);
+                    throw e;
+                }
+            }
+            return response;
+        }
+    }
+
+    /**
+     * Schedules abort of the request when the deadline passes.
+     *
+     * @return abort to cancel once the request completes, null if there is no deadline
+     */
+    private ScheduledFuture<?> scheduleAbort(final HttpRequestBase request, Deadline deadline) {
+        if (null == deadline) {
+            return null;
+        }
+        long remaining = deadline.getRemaining(TimeUnit.NANOSECONDS);
+        if (0 >= remaining) {
+            throw deadlineExceeded(request, null);
+        }
+        abortTargets.put(request, request);
+        return getScheduler().schedule(() -> {
+            request.abort();
+            HttpRequestBase target = abortTargets.get(request);
+            if (null != target) {
+                target.abort();
+            }
+        }, remaining, TimeUnit.NANOSECONDS);
+    }
+
+    private void cancelAbort(HttpRequestBase request, ScheduledFuture<?> abort) {
+        if (null != abort) {
+            abort.cancel(false);
+            abortTargets.remove(request);
+        }
+    }
+
+    /**
+     * Directs the deadline abort of the request, if one is scheduled, to the hedged copy which won, and aborts
+     * the copy if the deadline already passed.
+     */
+    private void redirectAbort(HttpRequestBase request, HttpRequestBase copy) {
+        if (null != abortTargets.replace(request, copy)) {
+            Deadline deadline = Deadline.current();
+            if (null != deadline && deadline.isExpired()) {
+                copy.abort();
+            }
+        }
+    }
+
+    /**
+     * Returns whether the delay ends before the deadline, true if there is no deadline.
+     */
+    private static boolean isBefore(Deadline deadline, long delay) {
+        return null == deadline || delay < deadline.getRemaining(TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cuts the timeouts of the request config, infinite and default ones included, to the time left.
+     */
+    private static RequestConfig limitTimeouts(RequestConfig config, long remaining) {
+        int timeout = (int) Math.min(remaining, Integer.MAX_VALUE);
+        return RequestConfig.copy(config)
+                .setConnectionRequestTimeout(limitTimeout(config.getConnectionRequestTimeout(), timeout))
+                .setConnectTimeout(limitTimeout(config.getConnectTimeout(), timeout))
+                .setSocketTimeout(limitTimeout(config.getSocketTimeout(), timeout))
+                .build();
+    }
+
+    private static int limitTimeout(int timeout, int limit) {
+        return 0 < timeout && timeout < limit ? timeout : limit;
+    }
+
+    private static DeadlineExceededException deadlineExceeded(HttpUriRequest request, Throwable cause) {
+        return new DeadlineExceededException("Deadline exceeded: " + request.getMethod() + " " + request.getURI(), cause);
+    }
+
+    /**
+     * Wraps an exception of a call, reporting it as deadline exceeded if the deadline of the call passed,
+     * since then the request was likely aborted by it.
+     */
+    private static GameException toGameException(HttpUriRequest request, Exception e, Deadline deadline) {
+        if (null != deadline && deadline.isExpired()) {
+            return deadlineExceeded(request, e);
+        }
+        return new GameException(e.getMessage(), e);
+    }
+
+    private static void countRequestBytes(HttpRequestBase request, final RequestEvent event) {
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntityEnclosingRequest enclosing = (HttpEntityEnclosingRequest) request;
+            HttpEntity entity = enclosing.getEntity();
+            if (null != entity && !(entity instanceof CountingEntity)) {
+                enclosing.setEntity(new CountingEntity(entity, event::addBytesSent));
+            }
+        }
+    }
+
+    private static void countResponseBytes(HttpResponse response, final RequestEvent event) {
+        HttpEntity entity = response.getEntity();
+        if (null != entity) {
+            response.setEntity(new CountingEntity(entity, event::addBytesReceived));
+        }
+    }
+
+    /**
+     * Starts measuring a call.
+     *
+     * @param request request of the call
+     * @return measurements of the call
+     */
+    protected RequestEvent startEvent(HttpUriRequest request) {
+        return new RequestEvent(request.getMethod(), getEndpointTemplate(request), request.getURI().toString());
+    }
+
+    /**
+     * Finishes measuring a call and records it.
+     *
+     * @param event measurements of the call
+     */
+    protected void finishEvent(RequestEvent event) {
+        event.finish();
+        metrics.record(event);
+    }
+
+    /**
+     * Returns the template the request is accounted under in metrics: the url path relative to the api endpoint,
+     * with numeric path segments replaced with {id} and without query.
+     *
+     * @param request request
+     * @return endpoint template
+     */
+    protected String getEndpointTemplate(HttpUriRequest request) {
+        String url = request.getURI().toString();
+        int start = null != apiEndpoint && url.startsWith(apiEndpoint) ? apiEndpoint.length() : -1;
+        if (0 > start) {
+            start = url.indexOf("//");
+            start = 0 > start ? 0 : url.indexOf('/', start + 2);
+            if (0 > start) {
+                return "/";
+            }
+        }
+        int end = url.indexOf('?', start);
+        if (0 > end) {
+            end = url.length();
+        }
+        StringBuilder result = new StringBuilder(end - start + 8);
+        int segment = start;
+        while (segment < end) {
+            int next = url.indexOf('/', segment);
+            if (0 > next || next > end) {
+                next = end;
+            }
+            if (isNumeric(url, segment, next)) {
+                result.append("{id}");
+            } else {
+                result.append(url, segment, next);
+            }
+            if (next < end) {
+                result.append('/');
+            }
+            segment = next + 1;
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the url of the request relative to the api endpoint, or to the group endpoint it was sent to,
+     * as it is recorded by the traffic recorder. Urls outside the endpoint are made relative to the server root.
+     *
+     * @param request request
+     * @return relative url, with query
+     */
+    protected String getRelativeUrl(HttpUriRequest request) {
+        String url = request.getURI().toString();
+        EndpointGroup group = endpointGroup;
+        Endpoint endpoint = null == group ? null : group.find(url);
+        String base = null == endpoint ? apiEndpoint : endpoint.getUrl();
+        if (null != base && url.startsWith(base)) {
+            return url.substring(base.length());
+        }
+        URI uri = request.getURI();
+        String path = null == uri.getRawPath() ? "" : uri.getRawPath();
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        return null == uri.getRawQuery() ? path : path + "?" + uri.getRawQuery();
+    }
+
+    private static boolean isNumeric(String s, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the request may be retried and hedged.
+     *
+     * @param request request
+     * @return true if the request is idempotent
+     */
+    protected boolean isIdempotent(HttpUriRequest request) {
+        return HttpGet.METHOD_NAME.equals(request.getMethod());
+    }
+
+    /**
+     * Returns whether the request may be retried after the exception.
+     *
+     * @param e exception
+     * @return true if the request may be retried
+     */
+    protected boolean isRetryable(IOException e) {
+        return !(e instanceof UnknownHostException || e instanceof SSLException || e instanceof ClientProtocolException);
+    }
+
+    /**
+     * Returns whether the response status means the server is unavailable, so the request may be retried.
+     *
+     * @param status response status
+     * @return true for 502, 503 and 504
+     */
+    protected static boolean isRetryable(int status) {
+        return 502 == status || 503 == status || 504 == status;
+    }
+
+    /**
+     * Returns the delay before the retry: random, up to the retry backoff multiplied by 2 to the power of
+     * the attempt number, but not more than the maximum retry backoff.
+     *
+     * @param attempt number of the failed attempt, starting with 0
+     * @return delay in milliseconds
+     */
+    protected long getRetryDelay(int attempt) {
+        long cap = Math.min(config.getMaxRetryBackoff(), config.getRetryBackoff() << Math.min(attempt, 20));
+        return 0 < cap ? ThreadLocalRandom.current().nextLong(cap + 1) : 0;
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+
+    /**
+     * Signs and sends the request once, through the circuit breaker of its endpoint.
+     */
+    private HttpResponse send(HttpRequestBase request, HttpClientContext context)
+            throws IOException, OAuthMessageSignerException, OAuthExpectationFailedException, OAuthCommunicationException {
+        RequestTimings timings = RequestTimings.get(context);
+        Endpoint endpoint = route(request);
+        timings.signStart = System.nanoTime();
+        prepareRequest(request);
+        timings.signed = System.nanoTime();
+        CircuitBreaker breaker = getCircuitBreaker(request);
+        if (null != breaker) {
+            breaker.acquire();
+        }
+
+        long start = System.nanoTime();
+        HttpResponse response;
+        if (null != endpoint) {
+            endpoint.onStart();
+        }
+        try {
+            response = hc.execute(request, context);
+        } catch (IOException e) {
+            if (request.isAborted() || e instanceof SocketTimeoutException) {
+                // the loser of a hedge or a call past its deadline or read timeout took at least this long
+                recordLatency(request, start);
             }
-        } finally {
-            if (null != err) {
-                err.close();
+            onFailure(breaker, request);
+            onFailure(endpoint, request);
+            throw e;
+        } catch (RuntimeException e) {
+            if (null != breaker) {
+                breaker.onIgnored();
+            }
+            if (null != endpoint) {
+                endpoint.onError();
             }
+            throw e;
         }
-    }
 
-    public static String addPageSizeAndNo(String url, Integer pageSize, Integer pageNo) {
-        StringBuilder listUrl = new StringBuilder(url);
-        if (null != pageSize) {
-            if (-1 == listUrl.indexOf("?")) {
-                listUrl.append('?');
-            } else {
-                listUrl.append('&');
+        int status = response.getStatusLine().getStatusCode();
+        log.debug("Response code: " + status);
+        onResponse(endpoint, status, System.nanoTime() - start);
+        if (isRetryable(status)) {
+            onFailure(breaker, request);
+        } else {
+            if (null != breaker) {
+                breaker.onSuccess();
             }
-            listUrl.append("pageSize=").append(Integer.toString(pageSize));
+            recordLatency(request, start);
         }
-        if (null != pageNo) {
-            if (-1 == listUrl.indexOf("?")) {
-                listUrl.append('?');
-            } else {
-                listUrl.append('&');
-            }
-            listUrl.append("pageNo=").append(Integer.toString(pageNo));
+        return response;
+    }
+
+    /**
+     * Records the latency of an attempt for hedging. Aborted and timed out attempts are recorded with the time
+     * until they were cut, so slow responses are sampled even if hedging cuts them short.
+     */
+    private void recordLatency(HttpRequestBase request, long start) {
+        if (config.getHedgeRequests() && isIdempotent(request)) {
+            getLatencyTracker(request).record((System.nanoTime() - start) / 1000000L);
         }
-        return listUrl.toString();
     }
 
-    public static String addPageSizeAndNoAndFilter(String url, Integer pageSize, Integer pageNo, String filter) {
-        StringBuilder listUrl = new StringBuilder(url);
-        if (null != pageSize) {
-            if (-1 == listUrl.indexOf("?")) {
-                listUrl.append('?');
+    private static void onFailure(CircuitBreaker breaker, HttpRequestBase request) {
+        if (null != breaker) {
+            if (request.isAborted()) {
+                breaker.onIgnored();
             } else {
-                listUrl.append('&');
+                breaker.onFailure();
             }
-            listUrl.append("pageSize=").append(Integer.toString(pageSize));
         }
-        if (null != pageNo) {
-            if (-1 == listUrl.indexOf("?")) {
-                listUrl.append('?');
-            } else {
-                listUrl.append('&');
+    }
+
+    private void onFailure(Endpoint endpoint, HttpRequestBase request) {
+        if (null != endpoint) {
+            endpoint.onError();
+            EndpointGroup group = endpointGroup;
+            if (!request.isAborted() && null != group) {
+                group.onFailure(endpoint);
             }
-            listUrl.append("pageNo=").append(Integer.toString(pageNo));
         }
-        if (null != filter) {
-            if (-1 == listUrl.indexOf("?")) {
-                listUrl.append('?');
-            } else {
-                listUrl.append('&');
+    }
+
+    private void onResponse(Endpoint endpoint, int status, long nanos) {
+        if (null != endpoint) {
+            endpoint.onResponse(nanos);
+            EndpointGroup group = endpointGroup;
+            if (null != group) {
+                if (isRetryable(status)) {
+                    group.onFailure(endpoint);
+                } else {
+                    group.onSuccess(endpoint);
+                }
             }
-            listUrl.append("filter=").append(filter);
         }
-        return listUrl.toString();
     }
 
-    public static String addPageSizeAndNoAndFilterAndOrder(String url, Integer pageSize, Integer pageNo, String filter, String order) {
-        StringBuilder listUrl = new StringBuilder(url);
-        if (null != pageSize) {
-            if (-1 == listUrl.indexOf("?")) {
-                listUrl.append('?');
-            } else {
-                listUrl.append('&');
+    /**
+     * Sends the GET and, if it does not complete within the delay, a copy of it, and returns the response
+     * which arrives first, aborting the other request.
+     */
+    private HttpResponse sendHedged(final HttpRequestBase request, long delay, HttpClientContext context)
+            throws IOException, OAuthMessageSignerException, OAuthExpectationFailedException, OAuthCommunicationException {
+        final HttpGet copy = new HttpGet(request.getURI());
+        copy.setHeaders(request.getAllHeaders());
+        copy.setConfig(request.getConfig());
+        final RequestTimings copyTimings = new RequestTimings();
+        copyTimings.bytesReceived = RequestTimings.get(context).bytesReceived;
+        final HttpClientContext copyContext = HttpClientContext.create();
+        copyContext.setAttribute(RequestTimings.ATTRIBUTE, copyTimings);
+
+        // 0: waiting, 1: copy sent, 2: request completed before the copy was sent
+        final AtomicInteger phase = new AtomicInteger();
+        final AtomicReference<HttpRequestBase> winner = new AtomicReference<>();
+        final CompletableFuture<HttpResponse> hedged = new CompletableFuture<>();
+        ScheduledFuture<?> timer = getScheduler().schedule(() -> {
+            if (phase.compareAndSet(0, 1)) {
+                log.debug("Hedging " + request.getURI());
+                try {
+                    getExecutor().execute(() -> {
+                        try {
+                            HttpResponse response = send(copy, copyContext);
+                            if (winner.compareAndSet(null, copy)) {
+                                hedged.complete(response);
+                                request.abort();
+                            } else {
+                                HttpClientUtils.closeQuietly(response);
+                                hedged.cancel(false);
+                            }
+                        } catch (Exception e) {
+                            hedged.completeExceptionally(e);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    hedged.completeExceptionally(e);
+                }
             }
-            listUrl.append("pageSize=").append(Integer.toString(pageSize));
-        }
-        if (null != pageNo) {
-            if (-1 == listUrl.indexOf("?")) {
-                listUrl.append('?');
-            } else {
-                listUrl.append('&');
+        }, delay, TimeUnit.MILLISECONDS);
+
+        HttpResponse response;
+        try {
+            response = send(request, context);
+        } catch (IOException e) {
+            if (phase.compareAndSet(0, 2)) {
+                timer.cancel(false);
+                throw e;
             }
-            listUrl.append("pageNo=").append(Integer.toString(pageNo));
-        }
-        if (null != filter) {
-            if (-1 == listUrl.indexOf("?")) {
-                listUrl.append('?');
-            } else {
-                listUrl.append('&');
+            if (request.isAborted() && !hedged.isDone()) {
+                copy.abort();
+                throw e;
             }
-            listUrl.append("filter=").append(filter);
-        }
-        if (null != order) {
-            if (-1 == listUrl.indexOf("?")) {
-                listUrl.append('?');
-            } else {
-                listUrl.append('&');
+            try {
+                response = hedged.get();
+                RequestTimings.get(context).copyFrom(copyTimings);
+                redirectAbort(request, copy);
+                return response;
+            } catch (ExecutionException | CancellationException x) {
+                throw e;
+            } catch (InterruptedException x) {
+                Thread.currentThread().interrupt();
+                copy.abort();
+                throw new InterruptedIOException("Interrupted while waiting for hedged request");
+            }
+        } catch (OAuthMessageSignerException | OAuthExpectationFailedException | OAuthCommunicationException | RuntimeException e) {
+            if (!phase.compareAndSet(0, 2)) {
+                copy.abort();
             }
-            listUrl.append("order=").append(order);
+            timer.cancel(false);
+            throw e;
+        }
+
+        phase.compareAndSet(0, 2);
+        timer.cancel(false);
+        if (winner.compareAndSet(null, request)) {
+            copy.abort();
+            return response;
+        }
+        HttpClientUtils.closeQuietly(response);
+        try {
+            response = hedged.get();
+            RequestTimings.get(context).copyFrom(copyTimings);
+            redirectAbort(request, copy);
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for hedged request");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
         }
-        return listUrl.toString();
     }
 
     /**
-     * Converts an InputStream instance into a byte[].
+     * Returns the delay after which the request is hedged: the 95th percentile of recent latencies of its
+     * endpoint, but not less than the minimum hedge delay.
      *
-     * @param is InputStream instance
-     * @return byte[]
-     * @throws IOException IOException
+     * @param request request
+     * @return delay in milliseconds, -1 if the request is not hedged
      */
-    protected static byte[] inputStreamToByteArray(InputStream is) throws IOException {
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    protected long getHedgeDelay(HttpUriRequest request) {
+        if (!config.getHedgeRequests() || !isIdempotent(request)) {
+            return -1;
+        }
+        long p95 = getLatencyTracker(request).getPercentile(MIN_HEDGE_SAMPLES);
+        return 0 > p95 ? -1 : Math.max(p95, config.getMinHedgeDelay());
+    }
 
-        int nRead;
-        byte[] data = new byte[COPY_BUFFER_SIZE];
+    private LatencyTracker getLatencyTracker(HttpUriRequest request) {
+        return latencies.computeIfAbsent(getEndpoint(request), k -> new LatencyTracker(0.95));
+    }
 
-        while ((nRead = is.read(data, 0, data.length)) != -1) {
-            buffer.write(data, 0, nRead);
+    /**
+     * Returns the circuit breaker of the request endpoint, null if circuit breakers are off.
+     *
+     * @param request request
+     * @return circuit breaker or null
+     */
+    protected CircuitBreaker getCircuitBreaker(HttpUriRequest request) {
+        final int threshold = config.getCircuitBreakerFailureThreshold();
+        if (0 >= threshold) {
+            return null;
         }
+        return circuitBreakers.computeIfAbsent(getEndpoint(request),
+                k -> new CircuitBreaker(k, threshold, config.getCircuitBreakerOpenTime()));
+    }
 
-        buffer.flush();
-
-        return buffer.toByteArray();
+    /**
+     * Returns the endpoint of the request: scheme, host and port.
+     *
+     * @param request request
+     * @return endpoint
+     */
+    protected static String getEndpoint(HttpUriRequest request) {
+        URI uri = request.getURI();
+        return uri.getScheme() + "://" + uri.getRawAuthority();
     }
 
-    protected String encodeURL(String string) {
-        if (null == string) {
-            return null;
-        } else {
+    /**
+     * Executes a GET request through the response cache. Cached entries are revalidated with a conditional
+     * request and served from the cache if the server replies 304 Not Modified. If the cache revalidates in
+     * background, cached entries are served at once and revalidated in background when due.
+     *
+     * @param url  url to get
+     * @param type type of the response object
+     * @param <T>  type of the response object
+     * @return response object
+     * @throws GameException GameException
+     */
+    protected <T> T executeCachedGet(String url, TypeReference<T> type) throws GameException {
+        ResponseCache cache = responseCache;
+        String key = getCacheKey(url);
+        ResponseCache.Entry entry = cache.get(key);
+        long interval = cache.getBackgroundRevalidationInterval();
+        if (null != entry && 0 <= interval) {
+            T result;
             try {
-                return URLEncoder.encode(string, "UTF-8");
-            } catch (UnsupportedEncodingException e) {
-                throw new GameException("UnsupportedEncodingException: " + e.getMessage(), e);
+                result = entry.getObject(type, getObjectCodecs(entry.getFormat()).reader(type));
+            } catch (IOException e) {
+                log.debug("Cannot decode cached response of " + url + ", fetching it: " + e.getMessage());
+                return fetchCached(cache, url, key, null, type, false);
+            }
+            cache.recordHit();
+            if (entry.getValidated() + interval <= System.currentTimeMillis() && entry.startRevalidation()) {
+                revalidate(cache, url, key, entry, type);
             }
+            return result;
         }
+        return fetchCached(cache, url, key, entry, type, false);
     }
 
-    protected void doEmptyGet(String url) throws GameException {
-        log.debug("GETting url: " + url);
+    private <T> void revalidate(final ResponseCache cache, final String url, final String key,
+                                final ResponseCache.Entry entry, final TypeReference<T> type) {
         try {
-            HttpGet request = new HttpGet(url);
-            try {
-                request.addHeader("Accept-Charset", StandardCharsets.UTF_8.name());
-
-                if (signConnection) {
-                    consumer.sign(request);
-                }
-
-                HttpResponse response = hc.execute(request);
+            getExecutor().execute(Deadline.propagate(() -> {
                 try {
-                    log.debug("Response code: " + response.getStatusLine().getStatusCode());
-                    if (200 != response.getStatusLine().getStatusCode()) {
-                        throw processError(response);
-                    }
+                    fetchCached(cache, url, key, entry, type, true);
+                } catch (RuntimeException e) {
+                    log.debug("Background revalidation of " + url + " failed: " + e.getMessage());
                 } finally {
-                    HttpClientUtils.closeQuietly(response);
+                    entry.endRevalidation();
                 }
-            } finally {
-                request.releaseConnection();
-            }
-        } catch (OAuthExpectationFailedException | OAuthCommunicationException | OAuthMessageSignerException | IOException e) {
-            throw new GameException(e.getMessage(), e);
+            }));
+        } catch (RejectedExecutionException e) {
+            entry.endRevalidation();
         }
     }
 
-    protected <T> T doSimpleGet(String url, TypeReference<T> type) throws GameException {
-        log.debug("GETting url: " + url);
-        try {
-            HttpGet request = new HttpGet(url);
-            try {
-                request.addHeader("Accept-Charset", StandardCharsets.UTF_8.name());
-
-                if (signConnection) {
-                    consumer.sign(request);
-                }
-                HttpResponse response = hc.execute(request);
-
-                log.debug("Response code: " + response.getStatusLine().getStatusCode());
-                if (200 == response.getStatusLine().getStatusCode()) {
-                    InputStream in = null;
-                    try {
-                        if (log.isDebugEnabled()) {
-                            in = new BufferedInputStream(response.getEntity().getContent());
-                            byte[] buffer = inputStreamToByteArray(in);
-                            String content = new String(buffer, StandardCharsets.UTF_8);
-                            log.debug("Response:\n" + content + "\n");
-                            return mapper.readValue(buffer, type);
-                        } else {
-                            in = new BufferedInputStream(response.getEntity().getContent());
-                            return mapper.readValue(in, type);
-                        }
-                    } finally {
-                        if (null != in) {
-                            in.close();
-                        }
-                        HttpClientUtils.closeQuietly(response);
-                    }
-                } else {
-                    throw processError(response);
-                }
-            } finally {
-                request.releaseConnection();
+    /**
+     * Gets the url, conditionally if there is a cached entry, and updates the cache with the response.
+     * Background revalidations are not accounted as cache hits.
+     */
+    private <T> T fetchCached(ResponseCache cache, String url, String key, ResponseCache.Entry entry,
+                              TypeReference<T> type, boolean background) throws GameException {
+        HttpGet request = new HttpGet(url);
+        if (null != entry) {
+            cache.recordRevalidation();
+            if (null != entry.getETag()) {
+                request.addHeader("If-None-Match", entry.getETag());
+            }
+            if (null != entry.getLastModified()) {
+                request.addHeader("If-Modified-Since", entry.getLastModified());
             }
-        } catch (OAuthExpectationFailedException | OAuthCommunicationException | OAuthMessageSignerException | IOException e) {
-            throw new GameException(e.getMessage(), e);
         }
-    }
 
-    protected void doSimplePost(String url) throws GameException {
-        log.debug("POSTing url: " + url);
+        RequestEvent event = startEvent(request);
+        Deadline deadline = Deadline.current();
+        ScheduledFuture<?> abort = null;
         try {
-            HttpPost request = new HttpPost(url);
+            abort = scheduleAbort(request, deadline);
             try {
-                request.addHeader("Accept-Charset", StandardCharsets.UTF_8.name());
-                if (signConnection) {
-                    consumer.sign(request);
-                }
-                HttpResponse response = hc.execute(request);
+                HttpResponse response = executeRequest(request, true, event);
+                long decodeStart = System.nanoTime();
                 try {
-                    log.debug("Response code: " + response.getStatusLine().getStatusCode());
-                    if (200 != response.getStatusLine().getStatusCode()) {
+                    int status = response.getStatusLine().getStatusCode();
+                    if (304 == status && null != entry) {
+                        if (!background) {
+                            cache.recordHit();
+                        }
+                        entry.setValidated(System.currentTimeMillis());
+                        return entry.getObject(type, getObjectCodecs(entry.getFormat()).reader(type));
+                    }
+                    if (200 != status) {
                         throw processError(response);
                     }
+
+                    byte[] body = inputStreamToByteArray(getContent(response));
+                    if (isBodyLogged(url)) {
+                        log.debug("Response:\n" + LoggingInputStream.format(body, Math.min(body.length, bodyLogLimit), body.length) + "\n");
+                    }
+                    WireFormat format = getWireFormat(response);
+                    T result = getObjectCodecs(format).reader(type).readValue(body);
+
+                    Header eTag = response.getFirstHeader("ETag");
+                    Header lastModified = response.getFirstHeader("Last-Modified");
+                    Header cacheControl = response.getFirstHeader("Cache-Control");
+                    boolean noStore = null != cacheControl && cacheControl.getValue().contains("no-store");
+                    if (!noStore && (null != eTag || null != lastModified)) {
+                        ResponseCache.Entry fresh = new ResponseCache.Entry(
+                                null == eTag ? null : eTag.getValue(),
+                                null == lastModified ? null : lastModified.getValue(),
+                                format, body);
+                        fresh.putObject(type, result);
+                        cache.put(key, fresh);
+                    } else if (null != entry) {
+                        cache.invalidate(key);
+                    }
+                    return result;
                 } finally {
+                    event.setDecodeTime(System.nanoTime() - decodeStart);
                     HttpClientUtils.closeQuietly(response);
                 }
             } finally {
                 request.releaseConnection();
             }
         } catch (OAuthExpectationFailedException | OAuthCommunicationException | OAuthMessageSignerException | IOException e) {
-            throw new GameException(e.getMessage(), e);
+            throw event.setError(toGameException(request, e, deadline));
+        } catch (RuntimeException e) {
+            throw event.setError(e);
+        } finally {
+            cancelAbort(request, abort);
+            finishEvent(event);
         }
     }
 
-    protected void doPostObject(String url, Object object) throws GameException {
-        log.debug("POSTing object: " + url);
+    /**
+     * Returns the cache key for the url: signed responses are cached per signing identity.
+     *
+     * @param url url
+     * @return cache key
+     */
+    protected String getCacheKey(String url) {
+        return signConnection ? signer.getIdentity() + ' ' + url : url;
+    }
+
+    /**
+     * Executes the request and returns an iterator decoding elements of the JSON array in response.
+     * The connection stays leased until the iterator reaches the end of the array or is closed.
+     * The call is measured until the response headers arrive, decoding is not measured.
+     *
+     * @param request     request to execute
+     * @param elementType type of an array element
+     * @param <T>         type of an array element
+     * @return iterator over array elements
+     * @throws GameException GameException
+     */
+    protected <T> JsonArrayIterator<T> executeStreaming(HttpRequestBase request, TypeReference<T> elementType) throws GameException {
+        RequestEvent event = startEvent(request);
+        Deadline deadline = Deadline.current();
+        ScheduledFuture<?> abort = null;
+        boolean streaming = false;
         try {
-            HttpPost request = new HttpPost(url);
+            abort = scheduleAbort(request, deadline);
             try {
-                request.addHeader("Accept-Charset", StandardCharsets.UTF_8.name());
-                request.addHeader("Content-Type", "application/json");
-
-                request.setEntity(new ByteArrayEntity(mapper.writeValueAsBytes(object)));
-
-                if (signConnection) {
-                    consumer.sign(request);
-                }
-
-                HttpResponse response = hc.execute(request);
+                HttpResponse response = executeRequest(request, false, event);
                 try {
-                    log.debug("Response code: " + response.getStatusLine().getStatusCode());
                     if (200 != response.getStatusLine().getStatusCode()) {
                         throw processError(response);
                     }
+                    ObjectCodecCache codecs = getObjectCodecs(getWireFormat(response));
+                    JsonParser parser = codecs.getFactory().createParser(openContent(request, response));
+                    JsonArrayIterator<T> result = new JsonArrayIterator<>(request, response, parser, codecs.reader(elementType));
+                    streaming = true;
+                    return result;
                 } finally {
-                    HttpClientUtils.closeQuietly(response);
+                    if (!streaming) {
+                        HttpClientUtils.closeQuietly(response);
+                    }
                 }
             } finally {
-                request.releaseConnection();
+                if (!streaming) {
+                    request.releaseConnection();
+                }
             }
         } catch (OAuthExpectationFailedException | OAuthCommunicationException | OAuthMessageSignerException | IOException e) {
-            throw new GameException(e.getMessage(), e);
+            throw event.setError(toGameException(request, e, deadline));
+        } catch (RuntimeException e) {
+            throw event.setError(e);
+        } finally {
+            cancelAbort(request, abort);
+            finishEvent(event);
         }
     }
 
-    protected <T> T doPostReadObject(String url, Object object, TypeReference<T> type) throws GameException {
-        log.debug("POSTing object: " + url);
+    private static <T> Stream<T> toStream(JsonArrayIterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * Executes the request asynchronously on the non-blocking client and reads the response.
+     * Response is decoded on the {@link #getExecutor() executor} once it is fully received, which also completes
+     * the future, so that the I/O dispatch thread is not held up by decoding or dependent stages. Idempotent
+     * requests are retried and circuit breakers are applied as in {@link #executeRequest}; requests are not hedged.
+     * Cancelling the returned future cancels the underlying exchange. If the calling thread has a {@link Deadline},
+     * the future fails with {@link DeadlineExceededException} and the exchange is cancelled when it passes.
+     *
+     * @param request request to execute
+     * @param type    type of the response object, null if no response body is expected
+     * @param <T>     type of the response object
+     * @return future of the response object, completed with null if type is null
+     */
+    protected <T> CompletableFuture<T> executeAsync(final HttpRequestBase request, final TypeReference<T> type) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicReference<Future<HttpResponse>> exchange = new AtomicReference<>();
+        final RequestEvent event = startEvent(request);
+        countRequestBytes(request, event);
+        final ScheduledFuture<?> timer = scheduleDeadline(request, Deadline.current(), result);
+        result.whenComplete((value, error) -> {
+            if (null != timer) {
+                timer.cancel(false);
+            }
+            Future<HttpResponse> current = exchange.get();
+            if ((result.isCancelled() || error instanceof DeadlineExceededException) && null != current) {
+                current.cancel(true);
+            }
+            if (null != error) {
+                event.setError(error);
+            }
+            finishEvent(event);
+        });
+        sendAsync(request, type, result, exchange, event, 0);
+        return result;
+    }
+
+    /**
+     * Cuts the request timeouts to the time left and schedules failing the call when the deadline passes.
+     *
+     * @return timer to cancel once the call completes, null if there is no deadline or it passed
+     */
+    private ScheduledFuture<?> scheduleDeadline(final HttpRequestBase request, Deadline deadline, final CompletableFuture<?> result) {
+        if (null == deadline) {
+            return null;
+        }
+        long remaining = deadline.getRemaining(TimeUnit.NANOSECONDS);
+        if (0 >= remaining) {
+            result.completeExceptionally(deadlineExceeded(request, null));
+            return null;
+        }
+        RequestConfig requestConfig = null == request.getConfig() ? createRequestConfig(config) : request.getConfig();
+        request.setConfig(limitTimeouts(requestConfig, Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining))));
         try {
-            HttpPost request = new HttpPost(url);
-            try {
-                request.addHeader("Accept-Charset", StandardCharsets.UTF_8.name());
-                request.addHeader("Content-Type", "application/json");
+            return getScheduler().schedule(() -> result.completeExceptionally(deadlineExceeded(request, null)),
+                    remaining, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new GameException(e.getMessage(), e));
+            return null;
+        }
+    }
 
-                request.setEntity(new ByteArrayEntity(mapper.writeValueAsBytes(object)));
+    private <T> void sendAsync(final HttpRequestBase request, final TypeReference<T> type, final CompletableFuture<T> result,
+                               final AtomicReference<Future<HttpResponse>> exchange, final RequestEvent event, final int attempt) {
+        if (result.isDone()) {
+            return;
+        }
+        final Endpoint endpoint = route(request);
+        final CircuitBreaker breaker = getCircuitBreaker(request);
+        final RequestTimings timings = new RequestTimings();
+        try {
+            timings.signStart = System.nanoTime();
+            prepareRequest(request);
+            timings.signed = System.nanoTime();
+            event.addAttempt(timings);
+            if (null != breaker) {
+                breaker.acquire();
+            }
+        } catch (OAuthExpectationFailedException | OAuthCommunicationException | OAuthMessageSignerException e) {
+            result.completeExceptionally(new GameException(e.getMessage(), e));
+            return;
+        } catch (CircuitBreakerOpenException e) {
+            result.completeExceptionally(e);
+            return;
+        }
 
-                if (signConnection) {
-                    consumer.sign(request);
+        final int retries = isIdempotent(request) ? config.getMaxRetries() : 0;
+        final long start = System.nanoTime();
+        if (null != endpoint) {
+            endpoint.onStart();
+        }
+        exchange.set(getHttpAsyncClient().execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(final HttpResponse response) {
+                final long received = System.nanoTime();
+                try {
+                    int status = response.getStatusLine().getStatusCode();
+                    log.debug("Response code: " + status);
+                    onResponse(endpoint, status, received - start);
+                    event.setStatus(status);
+                    if (isRetryable(status)) {
+                        onFailure(breaker, request);
+                        if (attempt < retries) {
+                            log.debug("Retrying " + request.getURI() + " after " + response.getStatusLine());
+                            retryAsync(request, type, result, exchange, event, attempt);
+                            return;
+                        }
+                    } else if (null != breaker) {
+                        breaker.onSuccess();
+                    }
+                } catch (RuntimeException e) {
+                    HttpClientUtils.closeQuietly(response);
+                    complete(result, () -> result.completeExceptionally(e));
+                    return;
                 }
-
-                HttpResponse response = hc.execute(request);
-                if (200 == response.getStatusLine().getStatusCode()) {
-                    InputStream in = null;
+                complete(result, () -> {
                     try {
-                        if (log.isDebugEnabled()) {
-                            in = new BufferedInputStream(response.getEntity().getContent());
-                            byte[] buffer = inputStreamToByteArray(in);
-                            String content = new String(buffer, StandardCharsets.UTF_8);
-                            log.debug("Response:\n" + content + "\n");
-                            return mapper.readValue(buffer, type);
-                        } else {
-                            in = new BufferedInputStream(response.getEntity().getContent());
-                            return mapper.readValue(in, type);
+                        long decodeStart = System.nanoTime();
+                        countResponseBytes(response, event);
+                        TrafficRecorder recorder = trafficRecorder;
+                        if (null != recorder) {
+                            recorder.record(request, getRelativeUrl(request), response, received - start);
                         }
+                        T value = processResponse(request, response, type);
+                        event.setDecodeTime(System.nanoTime() - decodeStart);
+                        result.complete(value);
+                    } catch (IOException e) {
+                        result.completeExceptionally(new GameException(e.getMessage(), e));
+                    } catch (RuntimeException e) {
+                        result.completeExceptionally(e);
                     } finally {
-                        if (null != in) {
-                            in.close();
-                        }
                         HttpClientUtils.closeQuietly(response);
                     }
+                });
+            }
+
+            @Override
+            public void failed(Exception e) {
+                if (e instanceof IOException) {
+                    onFailure(breaker, request);
+                    onFailure(endpoint, request);
+                    if (attempt < retries && isRetryable((IOException) e)) {
+                        log.debug("Retrying " + request.getURI() + " after " + e);
+                        retryAsync(request, type, result, exchange, event, attempt);
+                        return;
+                    }
                 } else {
-                    throw processError(response);
+                    if (null != breaker) {
+                        breaker.onIgnored();
+                    }
+                    if (null != endpoint) {
+                        endpoint.onError();
+                    }
                 }
-            } finally {
-                request.releaseConnection();
+                complete(result, () -> result.completeExceptionally(new GameException(e.getMessage(), e)));
             }
-        } catch (OAuthExpectationFailedException | OAuthCommunicationException | OAuthMessageSignerException | IOException e) {
-            throw new GameException(e.getMessage(), e);
+
+            @Override
+            public void cancelled() {
+                if (null != breaker) {
+                    breaker.onIgnored();
+                }
+                if (null != endpoint) {
+                    endpoint.onError();
+                }
+                complete(result, () -> result.cancel(false));
+            }
+        }));
+        if (result.isCancelled()) {
+            exchange.get().cancel(true);
         }
     }
 
-    protected <T> T doPostRead(String url, TypeReference<T> type) throws GameException {
-        log.debug("POSTing url: " + url);
+    /**
+     * Completes the future on the executor, so that decoding, error mapping and the stages depending on the future
+     * do not hold up the I/O dispatch thread. If the executor is shut down, the future fails on the calling thread.
+     */
+    private void complete(CompletableFuture<?> result, Runnable completion) {
         try {
-            HttpPost request = new HttpPost(url);
-            try {
-                request.addHeader("Accept-Charset", StandardCharsets.UTF_8.name());
-                request.addHeader("Content-Type", "application/json");
+            getExecutor().execute(completion);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new GameException(e.getMessage(), e));
+        }
+    }
 
-                if (signConnection) {
-                    consumer.sign(request);
-                }
-                HttpResponse response = hc.execute(request);
-                if (200 == response.getStatusLine().getStatusCode()) {
-                    InputStream in = null;
-                    try {
-                        if (log.isDebugEnabled()) {
-                            in = new BufferedInputStream(response.getEntity().getContent());
-                            byte[] buffer = inputStreamToByteArray(in);
-                            String content = new String(buffer, StandardCharsets.UTF_8);
-                            log.debug("Response:\n" + content + "\n");
-                            return mapper.readValue(buffer, type);
-                        } else {
-                            in = new BufferedInputStream(response.getEntity().getContent());
-                            return mapper.readValue(in, type);
-                        }
-                    } finally {
-                        if (null != in) {
-                            in.close();
-                        }
-                        HttpClientUtils.closeQuietly(response);
-                    }
-                } else {
-                    throw processError(response);
-                }
-            } finally {
-                request.releaseConnection();
-            }
-        } catch (OAuthExpectationFailedException | OAuthCommunicationException | OAuthMessageSignerException | IOException e) {
-            throw new GameException(e.getMessage(), e);
+    private <T> void retryAsync(final HttpRequestBase request, final TypeReference<T> type, final CompletableFuture<T> result,
+                                final AtomicReference<Future<HttpResponse>> exchange, final RequestEvent event, final int attempt) {
+        try {
+            getScheduler().schedule(() -> sendAsync(request, type, result, exchange, event, attempt + 1),
+                    getRetryDelay(attempt), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new GameException(e.getMessage(), e));
+        }
+    }
+
+    /**
+     * Checks the response status and reads the response object.
+     *
+     * @param request  executed request
+     * @param response response to process
+     * @param type     type of the response object, null if no response body is expected
+     * @param <T>      type of the response object
+     * @return response object or null if type is null
+     * @throws IOException IOException
+     */
+    protected <T> T processResponse(HttpUriRequest request, HttpResponse response, TypeReference<T> type) throws IOException {
+        if (200 != response.getStatusLine().getStatusCode()) {
+            throw processError(response);
         }
+        if (null == type) {
+            return null;
+        }
+
+        try (InputStream in = openContent(request, response)) {
+            return getObjectCodecs(getWireFormat(response)).reader(type).readValue(in);
+        }
+    }
+
+    /**
+     * Opens response content for reading. If the JSON body should be logged, its beginning is captured
+     * while it is read and logged when the stream is closed.
+     *
+     * @param request  executed request
+     * @param response response
+     * @return response content
+     * @throws IOException IOException
+     */
+    protected InputStream openContent(HttpUriRequest request, HttpResponse response) throws IOException {
+        InputStream in = new BufferedInputStream(getContent(response));
+        if (WireFormat.JSON == getWireFormat(response) && isBodyLogged(request.getURI().toString())) {
+            in = new LoggingInputStream(in, log, "Response:\n", bodyLogLimit);
+        }
+        return in;
+    }
+
+    /**
+     * Decides whether the response body for the url is logged: debug is enabled, the url matches
+     * the body logging pattern, and the response is picked by sampling.
+     *
+     * @param url request url
+     * @return true if the body should be logged
+     */
+    protected boolean isBodyLogged(String url) {
+        if (!log.isDebugEnabled()) {
+            return false;
+        }
+        Pattern pattern = bodyLogUrlPattern;
+        if (null != pattern && !pattern.matcher(url).find()) {
+            return false;
+        }
+        int sampling = bodyLogSampling;
+        return 1 >= sampling || 0 == bodyLogCounter.getAndIncrement() % sampling;
     }
 
     protected RuntimeException processError(HttpResponse response) throws IOException {
-        return processError(response.getEntity().getContent(), mapper);
+        return processError(getContent(response), getObjectCodecs(getWireFormat(response)).reader(ExceptionDetails.class));
+    }
+
+    /**
+     * Returns response content, decompressing it if it is still gzip or deflate encoded.
+     * The blocking client decompresses responses itself, the non-blocking one does not.
+     *
+     * @param response response
+     * @return decoded response content
+     * @throws IOException IOException
+     */
+    protected static InputStream getContent(HttpResponse response) throws IOException {
+        HttpEntity entity = response.getEntity();
+        InputStream content = entity.getContent();
+        Header encoding = entity.getContentEncoding();
+        if (null != encoding && null != encoding.getValue()) {
+            String value = encoding.getValue().trim();
+            if ("gzip".equalsIgnoreCase(value) || "x-gzip".equalsIgnoreCase(value)) {
+                content = new GZIPInputStream(content, COPY_BUFFER_SIZE);
+            } else if ("deflate".equalsIgnoreCase(value)) {
+                content = new DeflateInputStream(content);
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Returns the wire format of the response body, by its content type. JSON if content type is unknown.
+     *
+     * @param response response
+     * @return wire format of the response body
+     */
+    protected static WireFormat getWireFormat(HttpResponse response) {
+        HttpEntity entity = response.getEntity();
+        Header contentType = null == entity ? null : entity.getContentType();
+        if (null == contentType) {
+            contentType = response.getFirstHeader("Content-Type");
+        }
+        return WireFormat.forContentType(null == contentType ? null : contentType.getValue());
     }
-}
\ No newline at end of file
+}
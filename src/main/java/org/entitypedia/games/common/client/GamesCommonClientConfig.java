@@ -0,0 +1,492 @@
+package org.entitypedia.games.common.client;
+
+/**
+ * Connection settings for games clients. Times are in milliseconds.
+ * <p>
+ * Defaults keep the behaviour of the client created by <code>HttpClients.createDefault()</code> where it matters
+ * to callers: reads wait without a timeout. They differ in bounding connecting and waiting for a pooled
+ * connection to 5 seconds, in pooling up to 200 connections, 50 per host, instead of 20 and 2, in closing
+ * connections idle for 30 seconds, and in not retrying requests unless {@link #setMaxRetries retries} are
+ * configured, as a resent request would carry the OAuth nonce already used.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class GamesCommonClientConfig {
+
+    private int maxConnectionsTotal = 200;
+    private int maxConnectionsPerRoute = 50;
+    private long keepAlive = 30000;
+    private int connectTimeout = 5000;
+    private int socketTimeout = 0;
+    private int connectionRequestTimeout = 5000;
+    private long idleConnectionTimeout = 30000;
+    private boolean tcpNoDelay = true;
+    private int pageSize = 100;
+    private int firstPageNo = 0;
+    private int prefetchPages = 2;
+    private boolean contentCompression = true;
+    private int requestCompressionThreshold = -1;
+    private int requestStreamingThreshold = 65536;
+    private int batchConcurrency = 8;
+    private int maxRetries = 0;
+    private long retryBackoff = 100;
+    private long maxRetryBackoff = 2000;
+    private boolean hedgeRequests = false;
+    private long minHedgeDelay = 50;
+    private int circuitBreakerFailureThreshold = 0;
+    private long circuitBreakerOpenTime = 10000;
+    private int endpointEjectionThreshold = 3;
+    private long endpointEjectionTime = 10000;
+    private String healthCheckPath;
+    private long healthCheckInterval = 5000;
+    private int healthCheckTimeout = 1000;
+
+    /**
+     * Returns maximum number of connections in the pool.
+     * @return maximum number of connections in the pool
+     */
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    /**
+     * Sets maximum number of connections in the pool.
+     * @param maxConnectionsTotal maximum number of connections in the pool
+     */
+    public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+    }
+
+    /**
+     * Returns maximum number of connections per route (host).
+     * @return maximum number of connections per route
+     */
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /**
+     * Sets maximum number of connections per route (host).
+     * @param maxConnectionsPerRoute maximum number of connections per route
+     */
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    /**
+     * Returns how long an idle connection is kept alive when the server does not say.
+     * @return keep-alive duration
+     */
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Sets how long an idle connection is kept alive when the server does not say
+     * with a Keep-Alive header.
+     * @param keepAlive keep-alive duration
+     */
+    public void setKeepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * Returns connect timeout.
+     * @return connect timeout
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Sets connect timeout. Zero means no timeout.
+     * @param connectTimeout connect timeout
+     */
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * Returns socket (read) timeout.
+     * @return socket timeout
+     */
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    /**
+     * Sets socket (read) timeout. Zero, the default, means no timeout.
+     * @param socketTimeout socket timeout
+     */
+    public void setSocketTimeout(int socketTimeout) {
+        this.socketTimeout = socketTimeout;
+    }
+
+    /**
+     * Returns how long to wait for a connection from the pool.
+     * @return connection request timeout
+     */
+    public int getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    /**
+     * Sets how long to wait for a connection from the pool. Zero means no timeout.
+     * @param connectionRequestTimeout connection request timeout
+     */
+    public void setConnectionRequestTimeout(int connectionRequestTimeout) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    /**
+     * Returns how long a connection may stay idle in the pool before it is closed.
+     * @return idle connection timeout
+     */
+    public long getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    /**
+     * Sets how long a connection may stay idle in the pool before it is closed. The pool is checked at this
+     * interval. Zero or less keeps idle connections, expired ones are still closed.
+     * @param idleConnectionTimeout idle connection timeout
+     */
+    public void setIdleConnectionTimeout(long idleConnectionTimeout) {
+        this.idleConnectionTimeout = idleConnectionTimeout;
+    }
+
+    /**
+     * Returns TCP_NODELAY flag.
+     * @return TCP_NODELAY flag
+     */
+    public boolean getTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    /**
+     * Sets TCP_NODELAY flag. If true, Nagle's algorithm is disabled.
+     * @param tcpNoDelay TCP_NODELAY flag
+     */
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+
+    /**
+     * Returns default page size for paged listings.
+     * @return default page size
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets default page size for paged listings.
+     * @param pageSize default page size
+     */
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Returns number of the first page in paged listings.
+     * @return number of the first page
+     */
+    public int getFirstPageNo() {
+        return firstPageNo;
+    }
+
+    /**
+     * Sets number of the first page in paged listings.
+     * @param firstPageNo number of the first page
+     */
+    public void setFirstPageNo(int firstPageNo) {
+        this.firstPageNo = firstPageNo;
+    }
+
+    /**
+     * Returns default number of pages fetched in background ahead of the consumed one.
+     * @return default number of prefetched pages
+     */
+    public int getPrefetchPages() {
+        return prefetchPages;
+    }
+
+    /**
+     * Sets default number of pages fetched in background ahead of the consumed one. Zero fetches pages on demand.
+     * @param prefetchPages default number of prefetched pages
+     */
+    public void setPrefetchPages(int prefetchPages) {
+        this.prefetchPages = prefetchPages;
+    }
+
+    /**
+     * Returns response compression flag.
+     * @return response compression flag
+     */
+    public boolean getContentCompression() {
+        return contentCompression;
+    }
+
+    /**
+     * Sets response compression flag. If true, gzip and deflate are accepted and responses are decompressed
+     * while they are read.
+     * @param contentCompression response compression flag
+     */
+    public void setContentCompression(boolean contentCompression) {
+        this.contentCompression = contentCompression;
+    }
+
+    /**
+     * Returns the size from which request bodies are gzipped.
+     * @return request compression threshold in bytes, negative if requests are not compressed
+     */
+    public int getRequestCompressionThreshold() {
+        return requestCompressionThreshold;
+    }
+
+    /**
+     * Sets the size from which request bodies are gzipped. Negative turns request compression off,
+     * which is the default, because the server should accept gzipped requests. Bodies larger than the streaming
+     * threshold are gzipped only if this threshold is not above it.
+     * @param requestCompressionThreshold request compression threshold in bytes
+     */
+    public void setRequestCompressionThreshold(int requestCompressionThreshold) {
+        this.requestCompressionThreshold = requestCompressionThreshold;
+    }
+
+    /**
+     * Returns the size up to which request bodies are buffered and sent with a fixed length.
+     * @return request streaming threshold in bytes
+     */
+    public int getRequestStreamingThreshold() {
+        return requestStreamingThreshold;
+    }
+
+    /**
+     * Sets the size up to which request bodies are serialized into a reused per-thread buffer and sent with
+     * a fixed length. Larger bodies are serialized straight to the connection with chunked transfer encoding,
+     * after their first bytes, up to the threshold, have been serialized into the buffer in vain.
+     * Zero or less streams all bodies.
+     * @param requestStreamingThreshold request streaming threshold in bytes
+     */
+    public void setRequestStreamingThreshold(int requestStreamingThreshold) {
+        this.requestStreamingThreshold = requestStreamingThreshold;
+    }
+
+    /**
+     * Returns maximum number of batch calls in flight at a time.
+     * @return batch concurrency
+     */
+    public int getBatchConcurrency() {
+        return batchConcurrency;
+    }
+
+    /**
+     * Sets maximum number of batch calls in flight at a time. Should not exceed maximum number of connections
+     * per route, otherwise the extra calls wait for a connection.
+     * @param batchConcurrency batch concurrency
+     */
+    public void setBatchConcurrency(int batchConcurrency) {
+        this.batchConcurrency = batchConcurrency;
+    }
+
+    /**
+     * Returns how many times an idempotent request is retried after an I/O error or a 502, 503 or 504 response.
+     * @return maximum number of retries
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Sets how many times an idempotent request is retried after an I/O error or a 502, 503 or 504 response.
+     * Each retry is signed anew. Zero, the default, turns retries off.
+     * @param maxRetries maximum number of retries
+     */
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Returns the base of exponential backoff between retries.
+     * @return retry backoff in milliseconds
+     */
+    public long getRetryBackoff() {
+        return retryBackoff;
+    }
+
+    /**
+     * Sets the base of exponential backoff between retries. The delay before retry n is random, up to
+     * the base multiplied by 2 to the power of n, but not more than the maximum backoff.
+     * @param retryBackoff retry backoff in milliseconds
+     */
+    public void setRetryBackoff(long retryBackoff) {
+        this.retryBackoff = retryBackoff;
+    }
+
+    /**
+     * Returns the upper bound of the delay between retries.
+     * @return maximum retry backoff in milliseconds
+     */
+    public long getMaxRetryBackoff() {
+        return maxRetryBackoff;
+    }
+
+    /**
+     * Sets the upper bound of the delay between retries.
+     * @param maxRetryBackoff maximum retry backoff in milliseconds
+     */
+    public void setMaxRetryBackoff(long maxRetryBackoff) {
+        this.maxRetryBackoff = maxRetryBackoff;
+    }
+
+    /**
+     * Returns request hedging flag.
+     * @return request hedging flag
+     */
+    public boolean getHedgeRequests() {
+        return hedgeRequests;
+    }
+
+    /**
+     * Sets request hedging flag. If true, when a GET does not complete within the 95th percentile of
+     * recent latencies of its endpoint, a second copy is sent and whichever answers first is used.
+     * @param hedgeRequests request hedging flag
+     */
+    public void setHedgeRequests(boolean hedgeRequests) {
+        this.hedgeRequests = hedgeRequests;
+    }
+
+    /**
+     * Returns the minimum delay before a hedged copy is sent.
+     * @return minimum hedge delay in milliseconds
+     */
+    public long getMinHedgeDelay() {
+        return minHedgeDelay;
+    }
+
+    /**
+     * Sets the minimum delay before a hedged copy is sent, which limits extra load on fast endpoints.
+     * @param minHedgeDelay minimum hedge delay in milliseconds
+     */
+    public void setMinHedgeDelay(long minHedgeDelay) {
+        this.minHedgeDelay = minHedgeDelay;
+    }
+
+    /**
+     * Returns the number of consecutive failures which opens the circuit breaker of an endpoint.
+     * @return circuit breaker failure threshold, zero or less if circuit breakers are off
+     */
+    public int getCircuitBreakerFailureThreshold() {
+        return circuitBreakerFailureThreshold;
+    }
+
+    /**
+     * Sets the number of consecutive failures which opens the circuit breaker of an endpoint. I/O errors and
+     * 502, 503 and 504 responses are failures. Zero or less turns circuit breakers off, which is the default.
+     * @param circuitBreakerFailureThreshold circuit breaker failure threshold
+     */
+    public void setCircuitBreakerFailureThreshold(int circuitBreakerFailureThreshold) {
+        this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+    }
+
+    /**
+     * Returns how long an open circuit breaker fails calls before it lets a probe call through.
+     * @return circuit breaker open time in milliseconds
+     */
+    public long getCircuitBreakerOpenTime() {
+        return circuitBreakerOpenTime;
+    }
+
+    /**
+     * Sets how long an open circuit breaker fails calls before it lets a probe call through.
+     * @param circuitBreakerOpenTime circuit breaker open time in milliseconds
+     */
+    public void setCircuitBreakerOpenTime(long circuitBreakerOpenTime) {
+        this.circuitBreakerOpenTime = circuitBreakerOpenTime;
+    }
+
+    /**
+     * Returns the number of consecutive failures which ejects an endpoint from an endpoint group.
+     * @return endpoint ejection threshold
+     */
+    public int getEndpointEjectionThreshold() {
+        return endpointEjectionThreshold;
+    }
+
+    /**
+     * Sets the number of consecutive failures which ejects an endpoint from an endpoint group. I/O errors and
+     * 502, 503 and 504 responses are failures, as are failed health checks.
+     * @param endpointEjectionThreshold endpoint ejection threshold
+     */
+    public void setEndpointEjectionThreshold(int endpointEjectionThreshold) {
+        this.endpointEjectionThreshold = endpointEjectionThreshold;
+    }
+
+    /**
+     * Returns how long an ejected endpoint gets no requests before it is tried again, if endpoints are not
+     * health checked.
+     * @return endpoint ejection time in milliseconds
+     */
+    public long getEndpointEjectionTime() {
+        return endpointEjectionTime;
+    }
+
+    /**
+     * Sets how long an ejected endpoint gets no requests before it is tried again, if endpoints are not
+     * health checked.
+     * @param endpointEjectionTime endpoint ejection time in milliseconds
+     */
+    public void setEndpointEjectionTime(long endpointEjectionTime) {
+        this.endpointEjectionTime = endpointEjectionTime;
+    }
+
+    /**
+     * Returns the path, relative to an endpoint, which health checks get.
+     * @return health check path, null if endpoints are not health checked
+     */
+    public String getHealthCheckPath() {
+        return healthCheckPath;
+    }
+
+    /**
+     * Sets the path, relative to an endpoint, which health checks get. A 200 response means the endpoint
+     * is healthy. Null, the default, turns health checks off.
+     * @param healthCheckPath health check path
+     */
+    public void setHealthCheckPath(String healthCheckPath) {
+        this.healthCheckPath = healthCheckPath;
+    }
+
+    /**
+     * Returns the interval between health checks of an endpoint.
+     * @return health check interval
+     */
+    public long getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    /**
+     * Sets the interval between health checks of an endpoint.
+     * @param healthCheckInterval health check interval
+     */
+    public void setHealthCheckInterval(long healthCheckInterval) {
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    /**
+     * Returns the connect and read timeout of a health check.
+     * @return health check timeout
+     */
+    public int getHealthCheckTimeout() {
+        return healthCheckTimeout;
+    }
+
+    /**
+     * Sets the connect and read timeout of a health check.
+     * @param healthCheckTimeout health check timeout
+     */
+    public void setHealthCheckTimeout(int healthCheckTimeout) {
+        this.healthCheckTimeout = healthCheckTimeout;
+    }
+}
@@ -1,11 +1,15 @@
 package org.entitypedia.games.common.client;
 
+import java.io.Closeable;
+import java.io.IOException;
+
 /**
- * A common interface for all games clients.
+ * A common interface for all games clients. Methods added after the first release have default implementations,
+ * so that existing implementations keep compiling.
  *
  * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public interface IGamesCommonClient {
+public interface IGamesCommonClient extends Closeable {
 
     /**
      * Returns current api endpoint.
@@ -30,4 +34,28 @@ public interface IGamesCommonClient {
      * @param signConnection connection signing flag
      */
     void setSignConnection(boolean signConnection);
+
+    /**
+     * Returns connection pool statistics: leased, available and pending connections.
+     * @return connection pool statistics or null if the http client is not pooled by this client
+     */
+    default ConnectionPoolStats getConnectionPoolStats() {
+        return null;
+    }
+
+    /**
+     * Returns metrics of calls made by this client, per endpoint template and HTTP method.
+     * @return client metrics or null if the client does not collect them
+     */
+    default ClientMetrics getMetrics() {
+        return null;
+    }
+
+    /**
+     * Releases connections and threads held by the client. Does nothing by default.
+     * @throws IOException if the resources cannot be released
+     */
+    @Override
+    default void close() throws IOException {
+    }
 }
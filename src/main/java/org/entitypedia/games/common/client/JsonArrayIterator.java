@@ -0,0 +1,110 @@
+package org.entitypedia.games.common.client;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.HttpClientUtils;
+import org.entitypedia.games.common.exceptions.GameException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator which decodes elements of a top-level JSON array one by one, while the response is being read.
+ * The connection is released when the end of the array is reached. If the iterator is closed earlier,
+ * the request is aborted, so the rest of a large response is not read.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class JsonArrayIterator<T> implements Iterator<T>, Closeable {
+
+    private final HttpRequestBase request;
+    private final HttpResponse response;
+    private final JsonParser parser;
+    private final ObjectReader reader;
+
+    private boolean finished;
+    private boolean advanced;
+
+    public JsonArrayIterator(HttpRequestBase request, HttpResponse response, JsonParser parser,
+                             ObjectReader reader) throws IOException {
+        this.request = request;
+        this.response = response;
+        this.parser = parser;
+        this.reader = reader;
+
+        JsonToken token = parser.nextToken();
+        if (null == token || JsonToken.VALUE_NULL == token) {
+            release();
+        } else if (JsonToken.START_ARRAY != token) {
+            throw new GameException("Expected JSON array, got: " + token);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (finished) {
+            return false;
+        }
+        if (!advanced) {
+            try {
+                JsonToken token = parser.nextToken();
+                if (null == token || JsonToken.END_ARRAY == token) {
+                    release();
+                    return false;
+                }
+                advanced = true;
+            } catch (IOException e) {
+                close();
+                throw new GameException(e.getMessage(), e);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        advanced = false;
+        try {
+            return reader.readValue(parser);
+        } catch (IOException e) {
+            close();
+            throw new GameException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Releases the connection, aborting the request if the array was not read to the end.
+     */
+    @Override
+    public void close() {
+        if (!finished) {
+            finished = true;
+            request.abort();
+            closeParser();
+            HttpClientUtils.closeQuietly(response);
+        }
+    }
+
+    private void release() {
+        finished = true;
+        closeParser();
+        HttpClientUtils.closeQuietly(response);
+        request.releaseConnection();
+    }
+
+    private void closeParser() {
+        try {
+            parser.close();
+        } catch (IOException e) {
+            // connection is released or aborted anyway
+        }
+    }
+}
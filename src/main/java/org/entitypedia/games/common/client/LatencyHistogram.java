@@ -0,0 +1,121 @@
+package org.entitypedia.games.common.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets: each power of two of microseconds is split into
+ * 8 buckets, so percentiles are estimated within 12.5% of the actual value, with fixed memory and
+ * no allocation on record.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_BUCKETS = 2 * SUB_BUCKETS;
+    private static final int BUCKETS = LINEAR_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos latency in nanoseconds, negative values are ignored
+     */
+    public void record(long nanos) {
+        if (0 > nanos) {
+            return;
+        }
+        long micros = nanos / 1000L;
+        counts.incrementAndGet(getBucket(micros));
+        count.increment();
+        sum.add(micros);
+        if (micros > max.get()) {
+            max.accumulateAndGet(micros, Math::max);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the histogram. The snapshot is not atomic: values recorded while it is taken
+     * may be partially reflected.
+     *
+     * @return latency statistics
+     */
+    public LatencyStats getStats() {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        // bucket bounds may exceed the largest recorded value
+        long maxValue = max.get();
+        return new LatencyStats(total, 0 == total ? 0 : toMillis(sum.sum()) / total,
+                toMillis(Math.min(maxValue, getPercentile(snapshot, total, 0.5))),
+                toMillis(Math.min(maxValue, getPercentile(snapshot, total, 0.99))),
+                toMillis(Math.min(maxValue, getPercentile(snapshot, total, 0.999))),
+                toMillis(maxValue));
+    }
+
+    /**
+     * Returns number of recorded latencies.
+     *
+     * @return number of recorded latencies
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    private static long getPercentile(long[] snapshot, long total, double percentile) {
+        if (0 == total) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return getUpperBound(i);
+            }
+        }
+        return getUpperBound(BUCKETS - 1);
+    }
+
+    static int getBucket(long micros) {
+        if (micros < LINEAR_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long getUpperBound(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (subBucket + 1) * width - 1;
+    }
+
+    private static double toMillis(double micros) {
+        return micros / 1000d;
+    }
+}
@@ -0,0 +1,78 @@
+package org.entitypedia.games.common.client;
+
+/**
+ * A snapshot of a latency histogram. Latencies are in milliseconds.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class LatencyStats {
+
+    private final long count;
+    private final double mean;
+    private final double p50;
+    private final double p99;
+    private final double p999;
+    private final double max;
+
+    public LatencyStats(long count, double mean, double p50, double p99, double p999, double max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    /**
+     * Returns number of recorded latencies.
+     * @return number of recorded latencies
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns mean latency.
+     * @return mean latency in milliseconds
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Returns median latency.
+     * @return median latency in milliseconds
+     */
+    public double getP50() {
+        return p50;
+    }
+
+    /**
+     * Returns 99th percentile of latencies.
+     * @return 99th percentile in milliseconds
+     */
+    public double getP99() {
+        return p99;
+    }
+
+    /**
+     * Returns 99.9th percentile of latencies.
+     * @return 99.9th percentile in milliseconds
+     */
+    public double getP999() {
+        return p999;
+    }
+
+    /**
+     * Returns maximum latency.
+     * @return maximum latency in milliseconds
+     */
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "count: " + count + ", mean: " + mean + ", p50: " + p50 + ", p99: " + p99 + ", p999: " + p999 + ", max: " + max;
+    }
+}
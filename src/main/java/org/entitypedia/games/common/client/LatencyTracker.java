@@ -0,0 +1,56 @@
+package org.entitypedia.games.common.client;
+
+import java.util.Arrays;
+
+/**
+ * Keeps a window of recent latencies of an endpoint and estimates their percentile.
+ * The percentile is recomputed after every few samples, not on each request.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class LatencyTracker {
+
+    private static final int WINDOW = 512;
+    private static final int RECOMPUTE_INTERVAL = 32;
+
+    private final double percentile;
+    private final long[] samples = new long[WINDOW];
+    private int count;
+    private int sinceRecompute;
+    private long value = -1;
+
+    /**
+     * Creates a tracker.
+     *
+     * @param percentile percentile to estimate, between 0 and 1
+     */
+    LatencyTracker(double percentile) {
+        this.percentile = percentile;
+    }
+
+    synchronized void record(long latency) {
+        samples[count % WINDOW] = latency;
+        count++;
+        sinceRecompute++;
+    }
+
+    /**
+     * Returns the percentile of latencies in the window, or -1 if there are fewer samples than required.
+     *
+     * @param minSamples minimum number of samples
+     * @return percentile of latencies in milliseconds or -1
+     */
+    synchronized long getPercentile(int minSamples) {
+        int size = Math.min(count, WINDOW);
+        if (size < minSamples) {
+            return -1;
+        }
+        if (0 > value || RECOMPUTE_INTERVAL <= sinceRecompute) {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            value = sorted[Math.min(size - 1, (int) Math.ceil(percentile * size) - 1)];
+            sinceRecompute = 0;
+        }
+        return value;
+    }
+}
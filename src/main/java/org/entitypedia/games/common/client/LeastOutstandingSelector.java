@@ -0,0 +1,32 @@
+package org.entitypedia.games.common.client;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses the endpoint with the fewest outstanding requests. Ties are broken in turn, so idle endpoints
+ * share the load evenly.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class LeastOutstandingSelector implements EndpointSelector {
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Override
+    public Endpoint select(List<Endpoint> endpoints) {
+        int size = endpoints.size();
+        int start = (next.getAndIncrement() & Integer.MAX_VALUE) % size;
+        Endpoint result = null;
+        int least = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            Endpoint endpoint = endpoints.get((start + i) % size);
+            int outstanding = endpoint.getOutstanding();
+            if (outstanding < least) {
+                least = outstanding;
+                result = endpoint;
+            }
+        }
+        return result;
+    }
+}
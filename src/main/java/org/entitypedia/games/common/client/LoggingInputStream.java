@@ -0,0 +1,113 @@
+package org.entitypedia.games.common.client;
+
+import org.slf4j.Logger;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Passes the stream through, capturing only its first bytes, and logs them at debug level on close,
+ * so the body is logged without being held in memory as a whole.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class LoggingInputStream extends FilterInputStream {
+
+    private final Logger log;
+    private final String prefix;
+    private final byte[] captured;
+    private int capturedLength;
+    private long total;
+    private boolean logged;
+
+    /**
+     * Creates a stream.
+     *
+     * @param in     stream to pass through
+     * @param log    logger to log the body to
+     * @param prefix text to log before the body
+     * @param limit  how many bytes to capture
+     */
+    public LoggingInputStream(InputStream in, Logger log, String prefix, int limit) {
+        super(in);
+        this.log = log;
+        this.prefix = prefix;
+        this.captured = new byte[Math.max(0, limit)];
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (-1 != b) {
+            if (capturedLength < captured.length) {
+                captured[capturedLength++] = (byte) b;
+            }
+            total++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (0 < n) {
+            int copy = Math.min(n, captured.length - capturedLength);
+            if (0 < copy) {
+                System.arraycopy(b, off, captured, capturedLength, copy);
+                capturedLength += copy;
+            }
+            total += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // read through to keep the captured prefix contiguous
+        byte[] buffer = new byte[(int) Math.min(n, 4096)];
+        long skipped = 0;
+        while (skipped < n) {
+            int r = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (-1 == r) {
+                break;
+            }
+            skipped += r;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!logged) {
+                logged = true;
+                log.debug(prefix + format(captured, capturedLength, total) + "\n");
+            }
+        } finally {
+            super.close();
+        }
+    }
+
+    /**
+     * Formats the body prefix for logging, noting truncation.
+     *
+     * @param body   body bytes
+     * @param length how many bytes of body to use
+     * @param total  how many bytes of body were read
+     * @return body prefix as text
+     */
+    public static String format(byte[] body, int length, long total) {
+        String text = new String(body, 0, length, StandardCharsets.UTF_8);
+        if (total > length) {
+            return text + "... [truncated, " + total + " bytes read]";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,296 @@
+package org.entitypedia.games.common.client;
+
+import oauth.signpost.OAuth;
+import oauth.signpost.OAuthConsumer;
+import oauth.signpost.exception.OAuthCommunicationException;
+import oauth.signpost.exception.OAuthExpectationFailedException;
+import oauth.signpost.exception.OAuthMessageSignerException;
+import oauth.signpost.http.HttpParameters;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.client.methods.HttpUriRequest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Signs requests with OAuth 1.0 HMAC-SHA1 authorization header, producing the same signatures as signpost's
+ * {@link oauth.signpost.commonshttp.CommonsHttpOAuthConsumer}, but without its global lock.
+ * <p>
+ * Signpost consumers keep per-request state and synchronize {@code sign}. This signer keeps no per-request
+ * state: credentials are read from the consumer, and the derived key material and encoded static
+ * parameters are cached until the consumer credentials change. Mac instances are kept per thread.
+ * Unlike the consumer, each signing generates a fresh nonce and timestamp, even if the request
+ * already carries an Authorization header, so retried requests can be re-signed.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class OAuthRequestSigner {
+
+    private static final String MAC_NAME = "HmacSHA1";
+    private static final String SIGNATURE_METHOD = "HMAC-SHA1";
+
+    private final OAuthConsumer consumer;
+
+    private volatile Credentials credentials;
+    private volatile Timestamp timestamp = new Timestamp(0);
+
+    private final ThreadLocal<MacHolder> macs = new ThreadLocal<>();
+
+    public OAuthRequestSigner(OAuthConsumer consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Signs the request, setting the Authorization header.
+     *
+     * @param request request to sign
+     * @throws OAuthMessageSignerException     if signature cannot be computed
+     * @throws OAuthExpectationFailedException if consumer key or secret are not set
+     * @throws OAuthCommunicationException     if form-encoded body cannot be read
+     */
+    public void sign(HttpUriRequest request) throws OAuthMessageSignerException, OAuthExpectationFailedException, OAuthCommunicationException {
+        Credentials c = getCredentials();
+
+        HttpParameters params = new HttpParameters();
+        collectQueryParameters(request, params);
+        collectBodyParameters(request, params);
+        for (int i = 0; i < c.staticParams.length; i += 2) {
+            if (!params.containsKey(c.staticParams[i])) {
+                params.put(c.staticParams[i], c.staticParams[i + 1], false);
+            }
+        }
+        if (!params.containsKey(OAuth.OAUTH_TIMESTAMP)) {
+            params.put(OAuth.OAUTH_TIMESTAMP, generateTimestamp(), false);
+        }
+        if (!params.containsKey(OAuth.OAUTH_NONCE)) {
+            params.put(OAuth.OAUTH_NONCE, generateNonce(), false);
+        }
+        params.remove(OAuth.OAUTH_SIGNATURE);
+
+        String baseString = request.getMethod() + '&' + OAuth.percentEncode(normalizeRequestUrl(request.getURI()))
+                + '&' + OAuth.percentEncode(normalizeRequestParameters(params));
+        byte[] digest = getMac(c).doFinal(baseString.getBytes(StandardCharsets.UTF_8));
+        String signature = Base64.getEncoder().encodeToString(digest);
+
+        request.setHeader(OAuth.HTTP_AUTHORIZATION_HEADER, buildHeader(params, OAuth.percentEncode(signature)));
+    }
+
+    /**
+     * Returns an identity of the credentials used for signing: consumer key and token.
+     *
+     * @return signing identity
+     */
+    public String getIdentity() {
+        return consumer.getConsumerKey() + '&' + consumer.getToken();
+    }
+
+    protected String generateTimestamp() {
+        long seconds = System.currentTimeMillis() / 1000L;
+        Timestamp t = timestamp;
+        if (t.seconds != seconds) {
+            t = new Timestamp(seconds);
+            timestamp = t;
+        }
+        return t.value;
+    }
+
+    protected String generateNonce() {
+        return Long.toString(ThreadLocalRandom.current().nextLong());
+    }
+
+    private Credentials getCredentials() throws OAuthExpectationFailedException {
+        String consumerKey = consumer.getConsumerKey();
+        String consumerSecret = consumer.getConsumerSecret();
+        if (null == consumerKey) {
+            throw new OAuthExpectationFailedException("consumer key not set");
+        }
+        if (null == consumerSecret) {
+            throw new OAuthExpectationFailedException("consumer secret not set");
+        }
+        String token = consumer.getToken();
+        String tokenSecret = consumer.getTokenSecret();
+
+        Credentials c = credentials;
+        if (null == c || !c.matches(consumerKey, consumerSecret, token, tokenSecret)) {
+            c = new Credentials(consumerKey, consumerSecret, token, tokenSecret);
+            credentials = c;
+        }
+        return c;
+    }
+
+    private Mac getMac(Credentials c) throws OAuthMessageSignerException {
+        MacHolder holder = macs.get();
+        if (null == holder || holder.credentials != c) {
+            try {
+                Mac mac = Mac.getInstance(MAC_NAME);
+                mac.init(c.key);
+                holder = new MacHolder(c, mac);
+                macs.set(holder);
+            } catch (GeneralSecurityException e) {
+                throw new OAuthMessageSignerException(e);
+            }
+        }
+        return holder.mac;
+    }
+
+    private static void collectQueryParameters(HttpUriRequest request, HttpParameters out) {
+        String query = request.getURI().getRawQuery();
+        if (null != query) {
+            out.putAll(OAuth.decodeForm(query), true);
+        }
+    }
+
+    private static void collectBodyParameters(HttpUriRequest request, HttpParameters out) throws OAuthCommunicationException {
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            Header contentType = null == entity ? null : entity.getContentType();
+            if (null != contentType && null != contentType.getValue() && contentType.getValue().startsWith(OAuth.FORM_ENCODED)) {
+                try (InputStream payload = entity.getContent()) {
+                    out.putAll(OAuth.decodeForm(payload), true);
+                } catch (IOException e) {
+                    throw new OAuthCommunicationException(e);
+                }
+            }
+        }
+    }
+
+    private static String normalizeRequestUrl(URI uri) {
+        String scheme = uri.getScheme().toLowerCase();
+        String authority = uri.getAuthority().toLowerCase();
+        boolean dropPort = ("http".equals(scheme) && 80 == uri.getPort())
+                || ("https".equals(scheme) && 443 == uri.getPort());
+        if (dropPort) {
+            int index = authority.lastIndexOf(':');
+            if (0 <= index) {
+                authority = authority.substring(0, index);
+            }
+        }
+        String path = uri.getRawPath();
+        if (null == path || path.isEmpty()) {
+            path = "/";
+        }
+        return scheme + "://" + authority + path;
+    }
+
+    private static String normalizeRequestParameters(HttpParameters params) {
+        StringBuilder result = new StringBuilder(256);
+        int i = 0;
+        for (Map.Entry<String, SortedSet<String>> entry : params.entrySet()) {
+            String key = entry.getKey();
+            if (!"realm".equals(key)) {
+                if (0 < i) {
+                    result.append('&');
+                }
+                Iterator<String> values = entry.getValue().iterator();
+                while (values.hasNext()) {
+                    result.append(key).append('=').append(values.next());
+                    if (values.hasNext()) {
+                        result.append('&');
+                    }
+                }
+            }
+            i++;
+        }
+        return result.toString();
+    }
+
+    private static String buildHeader(HttpParameters params, String signature) {
+        params.put(OAuth.OAUTH_SIGNATURE, signature, false);
+
+        StringBuilder header = new StringBuilder(256).append("OAuth ");
+        if (params.containsKey("realm")) {
+            header.append(params.getAsHeaderElement("realm")).append(", ");
+        }
+        boolean first = true;
+        for (String key : params.keySet()) {
+            if (key.startsWith("oauth_") || key.startsWith("x_oauth_")) {
+                String element = params.getAsHeaderElement(key);
+                if (!first) {
+                    header.append(", ");
+                }
+                header.append(element);
+                first = false;
+            }
+        }
+        return header.toString();
+    }
+
+    /**
+     * Credentials snapshot with derived key material and encoded static parameters.
+     */
+    private static final class Credentials {
+        private final String consumerKey;
+        private final String consumerSecret;
+        private final String token;
+        private final String tokenSecret;
+
+        private final SecretKeySpec key;
+        private final String[] staticParams;
+
+        private Credentials(String consumerKey, String consumerSecret, String token, String tokenSecret) {
+            this.consumerKey = consumerKey;
+            this.consumerSecret = consumerSecret;
+            this.token = token;
+            this.tokenSecret = tokenSecret;
+
+            String keyString = OAuth.percentEncode(consumerSecret) + '&' + OAuth.percentEncode(tokenSecret);
+            this.key = new SecretKeySpec(keyString.getBytes(StandardCharsets.UTF_8), MAC_NAME);
+
+            if (null != token && !token.isEmpty()) {
+                staticParams = new String[]{
+                        OAuth.OAUTH_CONSUMER_KEY, OAuth.percentEncode(consumerKey),
+                        OAuth.OAUTH_SIGNATURE_METHOD, SIGNATURE_METHOD,
+                        OAuth.OAUTH_VERSION, OAuth.VERSION_1_0,
+                        OAuth.OAUTH_TOKEN, OAuth.percentEncode(token)
+                };
+            } else {
+                staticParams = new String[]{
+                        OAuth.OAUTH_CONSUMER_KEY, OAuth.percentEncode(consumerKey),
+                        OAuth.OAUTH_SIGNATURE_METHOD, SIGNATURE_METHOD,
+                        OAuth.OAUTH_VERSION, OAuth.VERSION_1_0
+                };
+            }
+        }
+
+        private boolean matches(String consumerKey, String consumerSecret, String token, String tokenSecret) {
+            return equal(this.consumerKey, consumerKey) && equal(this.consumerSecret, consumerSecret)
+                    && equal(this.token, token) && equal(this.tokenSecret, tokenSecret);
+        }
+
+        private static boolean equal(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+
+    private static final class MacHolder {
+        private final Credentials credentials;
+        private final Mac mac;
+
+        private MacHolder(Credentials credentials, Mac mac) {
+            this.credentials = credentials;
+            this.mac = mac;
+        }
+    }
+
+    private static final class Timestamp {
+        private final long seconds;
+        private final String value;
+
+        private Timestamp(long seconds) {
+            this.seconds = seconds;
+            this.value = Long.toString(seconds);
+        }
+    }
+}
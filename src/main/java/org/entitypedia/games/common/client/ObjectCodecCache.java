@@ -0,0 +1,129 @@
+package org.entitypedia.games.common.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches immutable readers and writers of a mapper per type, so the type and its (de)serializer are
+ * resolved once, not on every call. Readers and writers capture mapper configuration at creation time,
+ * so the cache should be cleared after the mapper is reconfigured.
+ * <p>
+ * The cache may use a parser and generator factory other than the mapper's, for example for a binary format,
+ * keeping the rest of mapper configuration.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ObjectCodecCache {
+
+    private final ObjectMapper mapper;
+    private final JsonFactory factory;
+    private final ConcurrentMap<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public ObjectCodecCache(ObjectMapper mapper) {
+        this(mapper, null);
+    }
+
+    /**
+     * Creates a cache of readers and writers using the factory.
+     *
+     * @param mapper  mapper to take configuration from
+     * @param factory parser and generator factory, null for the mapper's factory
+     */
+    public ObjectCodecCache(ObjectMapper mapper, JsonFactory factory) {
+        this.mapper = mapper;
+        this.factory = null == factory ? mapper.getFactory() : factory;
+    }
+
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    /**
+     * Returns the parser and generator factory of the readers and writers.
+     *
+     * @return factory
+     */
+    public JsonFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Returns the reader for the type.
+     *
+     * @param type type to read
+     * @return reader
+     */
+    public ObjectReader reader(TypeReference<?> type) {
+        ObjectReader result = readers.get(type.getType());
+        if (null == result) {
+            result = mapper.readerFor(type).with(factory);
+            ObjectReader existing = readers.putIfAbsent(type.getType(), result);
+            if (null != existing) {
+                result = existing;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the reader for the class.
+     *
+     * @param clazz class to read
+     * @return reader
+     */
+    public ObjectReader reader(Class<?> clazz) {
+        ObjectReader result = readers.get(clazz);
+        if (null == result) {
+            result = mapper.readerFor(clazz).with(factory);
+            ObjectReader existing = readers.putIfAbsent(clazz, result);
+            if (null != existing) {
+                result = existing;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the writer for the class.
+     *
+     * @param clazz class to write
+     * @return writer
+     */
+    public ObjectWriter writer(Class<?> clazz) {
+        ObjectWriter result = writers.get(clazz);
+        if (null == result) {
+            result = mapper.writerFor(clazz).with(factory);
+            ObjectWriter existing = writers.putIfAbsent(clazz, result);
+            if (null != existing) {
+                result = existing;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the writer for the object, resolved by its runtime class.
+     *
+     * @param object object to write, may be null
+     * @return writer
+     */
+    public ObjectWriter writerFor(Object object) {
+        return null == object ? mapper.writer().with(factory) : writer(object.getClass());
+    }
+
+    /**
+     * Drops all cached readers and writers.
+     */
+    public void clear() {
+        readers.clear();
+        writers.clear();
+    }
+}
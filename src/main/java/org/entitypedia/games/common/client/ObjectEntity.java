@@ -0,0 +1,184 @@
+package org.entitypedia.games.common.client;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Entity which serializes the object straight to the connection, with chunked transfer encoding,
+ * instead of materializing the whole body first. Used for large bodies; small bodies are serialized
+ * with {@link #toBytes} into a reused per-thread buffer and sent with a fixed length.
+ * The body may be gzipped on the fly, in which case the entity carries gzip content encoding.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ObjectEntity extends AbstractHttpEntity {
+
+    private static final ThreadLocal<BoundedBuffer> BUFFERS = new ThreadLocal<>();
+
+    private final ObjectWriter writer;
+    private final Object object;
+    private final boolean gzip;
+
+    public ObjectEntity(ObjectWriter writer, Object object) {
+        this(writer, object, false);
+    }
+
+    public ObjectEntity(ObjectWriter writer, Object object, boolean gzip) {
+        this.writer = writer;
+        this.object = object;
+        this.gzip = gzip;
+        setChunked(true);
+        if (gzip) {
+            setContentEncoding("gzip");
+        }
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    /**
+     * Returns serialized, possibly gzipped, object. Materializes the whole body, used only by clients which cannot write entities
+     * to the connection, such as the non-blocking one.
+     *
+     * @return serialized object
+     * @throws IOException IOException
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+        writeTo(buffer);
+        return new ByteArrayInputStream(buffer.toByteArray());
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException {
+        if (gzip) {
+            // closing ends the deflater, the connection stream stays open
+            try (GZIPOutputStream out = new GZIPOutputStream(new NonClosingOutputStream(outstream), 8192)) {
+                writer.writeValue(new NonClosingOutputStream(out), object);
+            }
+        } else {
+            writer.writeValue(new NonClosingOutputStream(outstream), object);
+        }
+        outstream.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * Serializes the object into a reused per-thread buffer and returns a copy of exactly the serialized bytes,
+     * or null if the serialized object is larger than the limit.
+     *
+     * @param writer writer to serialize the object with
+     * @param object object to serialize
+     * @param limit  maximum size of the serialized object
+     * @return serialized object or null if it is larger than the limit
+     * @throws IOException IOException
+     */
+    public static byte[] toBytes(ObjectWriter writer, Object object, int limit) throws IOException {
+        if (0 >= limit) {
+            return null;
+        }
+        BoundedBuffer buffer = BUFFERS.get();
+        if (null == buffer || buffer.data.length != limit) {
+            buffer = new BoundedBuffer(limit);
+            BUFFERS.set(buffer);
+        }
+        buffer.count = 0;
+        try {
+            writer.writeValue(buffer, object);
+        } catch (IOException e) {
+            if (isOverflow(e)) {
+                return null;
+            }
+            throw e;
+        }
+        return Arrays.copyOf(buffer.data, buffer.count);
+    }
+
+    private static boolean isOverflow(Throwable e) {
+        for (Throwable t = e; null != t; t = t.getCause()) {
+            if (t == BufferOverflowException.INSTANCE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class BoundedBuffer extends OutputStream {
+        private final byte[] data;
+        private int count;
+
+        private BoundedBuffer(int size) {
+            data = new byte[size];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == data.length) {
+                throw BufferOverflowException.INSTANCE;
+            }
+            data[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > data.length - count) {
+                throw BufferOverflowException.INSTANCE;
+            }
+            System.arraycopy(b, off, data, count, len);
+            count += len;
+        }
+    }
+
+    private static final class BufferOverflowException extends IOException {
+        private static final BufferOverflowException INSTANCE = new BufferOverflowException();
+
+        private BufferOverflowException() {
+            super("Serialized object is larger than the buffer");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * Keeps the connection stream open when the generator closes its target.
+     */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        private NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
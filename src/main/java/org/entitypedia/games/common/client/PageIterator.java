@@ -0,0 +1,138 @@
+package org.entitypedia.games.common.client;
+
+import org.entitypedia.games.common.exceptions.GameException;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.IntFunction;
+
+/**
+ * Lazy iterator over all items of a paged listing. Pages are fetched in order, up to {@code prefetch}
+ * pages ahead of the one being consumed, so fetching overlaps with consumption and only a few pages
+ * are held in memory. Iteration stops after a page shorter than the page size. Pages fetched in background
+ * are fetched under the {@link Deadline} of the thread which advanced the iterator.
+ * <p>
+ * Iterator should be closed if abandoned before the end to cancel outstanding fetches.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class PageIterator<T> implements Iterator<T>, Closeable {
+
+    private final IntFunction<List<T>> pageFetcher;
+    private final int pageSize;
+    private final int prefetch;
+    private final ExecutorService executor;
+
+    private final ArrayDeque<Future<List<T>>> pending = new ArrayDeque<>();
+    private int nextPageNo;
+    private boolean lastPageFetched;
+
+    private Iterator<T> current = Collections.<T>emptyList().iterator();
+
+    /**
+     * Creates an iterator.
+     *
+     * @param pageFetcher fetches page by its number
+     * @param pageSize    page size
+     * @param firstPageNo number of the first page
+     * @param prefetch    how many pages to fetch in background ahead of the consumed one, 0 to fetch on demand
+     * @param executor    executor for background fetches, may be null if prefetch is 0
+     */
+    public PageIterator(IntFunction<List<T>> pageFetcher, int pageSize, int firstPageNo, int prefetch, ExecutorService executor) {
+        if (1 > pageSize) {
+            throw new IllegalArgumentException("Page size should be positive: " + pageSize);
+        }
+        this.pageFetcher = pageFetcher;
+        this.pageSize = pageSize;
+        this.prefetch = Math.max(0, prefetch);
+        this.executor = executor;
+        this.nextPageNo = firstPageNo;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (lastPageFetched && pending.isEmpty()) {
+                return false;
+            }
+            fill();
+            if (pending.isEmpty()) {
+                return false;
+            }
+            List<T> page = await(pending.poll());
+            if (null == page || page.size() < pageSize) {
+                lastPageFetched = true;
+                cancelPending();
+            }
+            if (null != page) {
+                current = page.iterator();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * Cancels outstanding fetches.
+     */
+    @Override
+    public void close() {
+        lastPageFetched = true;
+        cancelPending();
+        current = Collections.<T>emptyList().iterator();
+    }
+
+    private void fill() {
+        while (!lastPageFetched && pending.size() <= prefetch) {
+            final int pageNo = nextPageNo++;
+            Callable<List<T>> fetch = Deadline.propagate(() -> pageFetcher.apply(pageNo));
+            if (0 == prefetch || null == executor) {
+                FutureTask<List<T>> task = new FutureTask<>(fetch);
+                pending.add(task);
+                task.run();
+            } else {
+                pending.add(executor.submit(fetch));
+            }
+        }
+    }
+
+    private void cancelPending() {
+        for (Future<List<T>> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+    }
+
+    private List<T> await(Future<List<T>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new GameException("Interrupted while waiting for page", e);
+        } catch (ExecutionException e) {
+            close();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new GameException(cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.entitypedia.games.common.client;
+
+/**
+ * A request and its response captured by a {@link TrafficRecorder}. The url is relative to the api endpoint,
+ * so a recording may be replayed against another server. Bodies are kept as sent and as decoded:
+ * the request body may be compressed, the response body is not.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class RecordedExchange {
+
+    private final String method;
+    private final String url;
+    private final String requestContentType;
+    private final String requestContentEncoding;
+    private final byte[] requestBody;
+    private final int status;
+    private final String responseContentType;
+    private final byte[] responseBody;
+    private final long latency;
+
+    public RecordedExchange(String method, String url, String requestContentType, String requestContentEncoding,
+                            byte[] requestBody, int status, String responseContentType, byte[] responseBody, long latency) {
+        this.method = method;
+        this.url = url;
+        this.requestContentType = requestContentType;
+        this.requestContentEncoding = requestContentEncoding;
+        this.requestBody = requestBody;
+        this.status = status;
+        this.responseContentType = responseContentType;
+        this.responseBody = responseBody;
+        this.latency = latency;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns the request url relative to the api endpoint, with query.
+     * @return relative url
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns content type of the request body.
+     * @return content type, null if the request has no body
+     */
+    public String getRequestContentType() {
+        return requestContentType;
+    }
+
+    /**
+     * Returns content encoding of the request body.
+     * @return content encoding, null if the body is not encoded
+     */
+    public String getRequestContentEncoding() {
+        return requestContentEncoding;
+    }
+
+    /**
+     * Returns the request body, as sent.
+     * @return request body, null if the request has no body or it could not be captured
+     */
+    public byte[] getRequestBody() {
+        return requestBody;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns content type of the response body.
+     * @return content type, null if unknown
+     */
+    public String getResponseContentType() {
+        return responseContentType;
+    }
+
+    /**
+     * Returns the decoded response body.
+     * @return response body, empty if the response has no body
+     */
+    public byte[] getResponseBody() {
+        return responseBody;
+    }
+
+    /**
+     * Returns the time from sending the request to receiving the response.
+     * @return latency in nanoseconds
+     */
+    public long getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + url + " " + status;
+    }
+}
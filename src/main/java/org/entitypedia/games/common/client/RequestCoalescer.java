@@ -0,0 +1,141 @@
+package org.entitypedia.games.common.client;
+
+import org.entitypedia.games.common.exceptions.GameException;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent calls: the first caller executes the call, the others wait for it
+ * and get the same result or the same exception. Results are shared and must not be modified.
+ * Waiting callers keep their own {@link Deadline}: they stop waiting when it passes, and execute the call
+ * themselves if the deadline of the first caller passes while theirs did not.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class RequestCoalescer {
+
+    private final ConcurrentMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Executes the call, unless an identical call is in flight, in which case waits for its result.
+     *
+     * @param identity signing identity of the call
+     * @param url      url of the call
+     * @param type     type of the result
+     * @param call     call to execute
+     * @param <T>      type of the result
+     * @return result of the call
+     * @throws GameException exception thrown by the call or if waiting was interrupted
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String identity, String url, Type type, Supplier<T> call) throws GameException {
+        Key key = new Key(identity, url, type);
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, own);
+        if (null != existing) {
+            coalesced.incrementAndGet();
+            try {
+                return (T) await(existing);
+            } catch (DeadlineExceededException e) {
+                Deadline deadline = Deadline.current();
+                if (null != deadline && deadline.isExpired()) {
+                    throw e;
+                }
+                // the deadline of the caller which executed the call passed, ours did not
+                return execute(identity, url, type, call);
+            }
+        }
+
+        executed.incrementAndGet();
+        try {
+            T result = call.get();
+            own.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Returns number of calls actually executed.
+     * @return number of executed calls
+     */
+    public long getExecuted() {
+        return executed.get();
+    }
+
+    /**
+     * Returns number of calls which got the result of an identical call in flight.
+     * @return number of coalesced calls
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            Deadline deadline = Deadline.current();
+            return null == deadline ? future.get() : future.get(deadline.getRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("Deadline exceeded while waiting for coalesced request", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GameException("Interrupted while waiting for coalesced request", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new GameException(cause.getMessage(), cause);
+        }
+    }
+
+    private static final class Key {
+        private final String identity;
+        private final String url;
+        private final Type type;
+        private final int hash;
+
+        private Key(String identity, String url, Type type) {
+            this.identity = identity;
+            this.url = url;
+            this.type = type;
+            this.hash = 31 * (31 * (null == identity ? 0 : identity.hashCode()) + url.hashCode()) + type.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hash == key.hash && url.equals(key.url) && type.equals(key.type)
+                    && (null == identity ? null == key.identity : identity.equals(key.identity));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
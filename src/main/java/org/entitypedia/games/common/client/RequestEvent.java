@@ -0,0 +1,156 @@
+package org.entitypedia.games.common.client;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measurements of a single call, passed to {@link RequestListener}s when the call completes.
+ * Durations are in nanoseconds, -1 if not measured. Connection and server times are those of the last
+ * attempt; signing time is summed over all attempts. Byte counts may be updated by several threads at once,
+ * a hedged request and its copy for example.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class RequestEvent {
+
+    private final String method;
+    private final String template;
+    private final String url;
+    private final long start = System.nanoTime();
+
+    private int status = -1;
+    private Throwable error;
+    private int attempts;
+    private long totalTime = -1;
+    private long signTime = -1;
+    private long connectionTime = -1;
+    private long serverTime = -1;
+    private long decodeTime = -1;
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+
+    public RequestEvent(String method, String template, String url) {
+        this.method = method;
+        this.template = template;
+        this.url = url;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns the endpoint template the call is accounted under.
+     * @return endpoint template
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns status of the last response, -1 if no response was received.
+     * @return response status
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the exception the call failed with, null if it did not throw.
+     * @return exception or null
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * Returns whether the call failed with an exception or a status other than 200.
+     * @return true if the call failed
+     */
+    public boolean isError() {
+        return null != error || 200 != status;
+    }
+
+    /**
+     * Returns number of attempts made, more than one if the call was retried.
+     * @return number of attempts
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    public long getSignTime() {
+        return signTime;
+    }
+
+    public long getConnectionTime() {
+        return connectionTime;
+    }
+
+    public long getServerTime() {
+        return serverTime;
+    }
+
+    public long getDecodeTime() {
+        return decodeTime;
+    }
+
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    void setStatus(int status) {
+        this.status = status;
+    }
+
+    <E extends Throwable> E setError(E error) {
+        this.error = error;
+        return error;
+    }
+
+    void setDecodeTime(long decodeTime) {
+        this.decodeTime = decodeTime;
+    }
+
+    void addBytesSent(long bytes) {
+        bytesSent.add(bytes);
+    }
+
+    void addBytesReceived(long bytes) {
+        bytesReceived.add(bytes);
+    }
+
+    /**
+     * Accounts an attempt.
+     *
+     * @param timings timings of the attempt
+     */
+    void addAttempt(RequestTimings timings) {
+        attempts++;
+        if (0 != timings.signed) {
+            signTime = Math.max(0, signTime) + timings.signed - timings.signStart;
+        }
+        connectionTime = 0 != timings.sendStart ? timings.sendStart - timings.signed : -1;
+        serverTime = 0 != timings.received && 0 != timings.sent ? timings.received - timings.sent : -1;
+    }
+
+    void finish() {
+        totalTime = System.nanoTime() - start;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + url + ": " + status + (null == error ? "" : ", " + error) + ", " + totalTime / 1000 + " us";
+    }
+}
@@ -0,0 +1,18 @@
+package org.entitypedia.games.common.client;
+
+/**
+ * Receives measurements of completed calls. Listeners are called on the thread which completed the call:
+ * the calling thread for blocking calls, a thread of the client executor for asynchronous calls, or the
+ * client scheduler thread for an asynchronous call failed by its deadline. Listeners should return quickly.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface RequestListener {
+
+    /**
+     * Called when a call completes, successfully or not.
+     *
+     * @param event measurements of the call
+     */
+    void requestCompleted(RequestEvent event);
+}
@@ -0,0 +1,42 @@
+package org.entitypedia.games.common.client;
+
+import org.apache.http.protocol.HttpContext;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Timestamps of a single attempt, from {@link System#nanoTime()}, zero if not reached. Kept in the
+ * http context of the attempt, where {@link TimingRequestExecutor} fills in the network ones and counts
+ * response bytes as they come from the connection, before they are decompressed.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class RequestTimings {
+
+    static final String ATTRIBUTE = RequestTimings.class.getName();
+
+    long signStart;
+    long signed;
+    long sendStart;
+    long sent;
+    long received;
+
+    // counter of response bytes, set by the caller
+    LongConsumer bytesReceived;
+    // whether the executor wrapped the response entity with the counter
+    boolean bytesCounted;
+
+    static RequestTimings get(HttpContext context) {
+        Object timings = context.getAttribute(ATTRIBUTE);
+        return timings instanceof RequestTimings ? (RequestTimings) timings : null;
+    }
+
+    void copyFrom(RequestTimings other) {
+        signStart = other.signStart;
+        signed = other.signed;
+        sendStart = other.sendStart;
+        sent = other.sent;
+        received = other.received;
+        bytesCounted = other.bytesCounted;
+    }
+}
@@ -0,0 +1,502 @@
+package org.entitypedia.games.common.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of GET responses, bounded by entry count and total body size, with LRU eviction and
+ * time-to-live. Entries keep response validators (ETag and Last-Modified) for conditional revalidation,
+ * the raw body and the objects decoded from it, one per requested type.
+ * <p>
+ * Decoded objects are shared between all callers which get them from the cache and must not be modified.
+ * <p>
+ * The cache may be backed by a {@link DiskResponseStore}: stored responses are written through to it, and
+ * entries missing in memory are looked up there, so a restarted client starts warm. Writes to the store are
+ * made in background, in order, by a daemon thread of the cache; {@link #flush} waits for them before the
+ * store is closed. Entries may be served without waiting for revalidation, see
+ * {@link #setBackgroundRevalidationInterval}.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCache.class);
+
+    // marks a pending removal in pendingWrites
+    private static final Entry REMOVED = new Entry(null, null, WireFormat.JSON, new byte[0]);
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttl;
+    private final DiskResponseStore store;
+    private final ThreadPoolExecutor storeWriter;
+    // latest entry or removal for keys with store writes not made yet
+    private final Map<String, Entry> pendingWrites = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingClears = new AtomicInteger();
+    private volatile long backgroundRevalidationInterval = -1;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong storeLoads = new AtomicLong();
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxEntries maximum number of entries
+     * @param maxBytes   maximum total size of cached bodies
+     * @param ttl        how long an entry may be used for revalidation, in milliseconds, zero or less for no limit
+     */
+    public ResponseCache(int maxEntries, long maxBytes, long ttl) {
+        this(maxEntries, maxBytes, ttl, null);
+    }
+
+    /**
+     * Creates a cache backed by a persistent store.
+     *
+     * @param maxEntries maximum number of entries in memory
+     * @param maxBytes   maximum total size of bodies in memory
+     * @param ttl        how long an entry may be used for revalidation, in milliseconds, zero or less for no limit
+     * @param store      persistent store, null for memory only
+     */
+    public ResponseCache(int maxEntries, long maxBytes, long ttl, DiskResponseStore store) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttl = ttl;
+        this.store = store;
+        if (null == store) {
+            storeWriter = null;
+        } else {
+            storeWriter = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "games-client-cache-writer");
+                t.setDaemon(true);
+                return t;
+            });
+            storeWriter.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * Returns the persistent store backing the cache.
+     *
+     * @return persistent store or null
+     */
+    public DiskResponseStore getStore() {
+        return store;
+    }
+
+    /**
+     * Returns how long a cached entry is served without revalidation.
+     *
+     * @return background revalidation interval in milliseconds, negative if entries are revalidated on each use
+     */
+    public long getBackgroundRevalidationInterval() {
+        return backgroundRevalidationInterval;
+    }
+
+    /**
+     * Sets how long a cached entry is served without revalidation. When zero or more, cached entries are served
+     * at once and an entry validated longer than the interval ago is revalidated in background. Entries loaded
+     * from the persistent store are revalidated on first use. Negative, the default, revalidates entries
+     * with a conditional request on each use, before serving them.
+     *
+     * @param backgroundRevalidationInterval background revalidation interval in milliseconds
+     */
+    public void setBackgroundRevalidationInterval(long backgroundRevalidationInterval) {
+        this.backgroundRevalidationInterval = backgroundRevalidationInterval;
+    }
+
+    /**
+     * Returns the live entry for the key, or null.
+     *
+     * @param key cache key
+     * @return entry or null
+     */
+    public Entry get(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (null != entry && isExpired(entry)) {
+                remove(key);
+                entry = null;
+            }
+            if (null != entry) {
+                return entry;
+            }
+        }
+        Entry entry = load(key);
+        if (null == entry) {
+            misses.incrementAndGet();
+        }
+        return entry;
+    }
+
+    private Entry load(String key) {
+        if (null == store) {
+            return null;
+        }
+        Entry entry = pendingWrites.get(key);
+        if (null != entry) {
+            // the entry is on its way to the store, or was removed from it
+            return REMOVED == entry ? null : entry;
+        }
+        if (0 < pendingClears.get()) {
+            return null;
+        }
+        try {
+            entry = store.get(key);
+        } catch (IOException e) {
+            log.warn("Cannot read cached response: " + e.getMessage(), e);
+            return null;
+        }
+        if (null == entry) {
+            return null;
+        }
+        if (isExpired(entry)) {
+            invalidate(key);
+            return null;
+        }
+        storeLoads.incrementAndGet();
+        synchronized (entries) {
+            Entry current = entries.get(key);
+            if (null != current) {
+                return current;
+            }
+            putInMemory(key, entry);
+        }
+        return entry;
+    }
+
+    private boolean isExpired(Entry entry) {
+        return 0 < ttl && entry.created + ttl < System.currentTimeMillis();
+    }
+
+    /**
+     * Stores the entry, evicting least recently used entries to stay within bounds.
+     * Bodies larger than the whole cache are not stored.
+     *
+     * @param key   cache key
+     * @param entry entry
+     */
+    public void put(String key, Entry entry) {
+        if (null != store) {
+            pendingWrites.put(key, entry);
+            storeWriter.execute(() -> {
+                try {
+                    store.put(key, entry);
+                } catch (IOException e) {
+                    log.warn("Cannot store cached response: " + e.getMessage(), e);
+                } finally {
+                    pendingWrites.remove(key, entry);
+                }
+            });
+        }
+        synchronized (entries) {
+            putInMemory(key, entry);
+        }
+    }
+
+    private void putInMemory(String key, Entry entry) {
+        remove(key);
+        if (entry.body.length <= maxBytes) {
+            entries.put(key, entry);
+            bytes += entry.body.length;
+
+            Iterator<Map.Entry<String, Entry>> i = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || bytes > maxBytes) && i.hasNext()) {
+                Entry eldest = i.next().getValue();
+                i.remove();
+                bytes -= eldest.body.length;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes the entry.
+     *
+     * @param key cache key
+     */
+    public void invalidate(String key) {
+        synchronized (entries) {
+            remove(key);
+        }
+        if (null != store) {
+            pendingWrites.put(key, REMOVED);
+            storeWriter.execute(() -> {
+                try {
+                    store.remove(key);
+                } catch (IOException e) {
+                    log.warn("Cannot remove cached response: " + e.getMessage(), e);
+                } finally {
+                    pendingWrites.remove(key, REMOVED);
+                }
+            });
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            bytes = 0;
+        }
+        if (null != store) {
+            pendingClears.incrementAndGet();
+            pendingWrites.clear();
+            storeWriter.execute(() -> {
+                try {
+                    store.clear();
+                } catch (IOException e) {
+                    log.warn("Cannot clear cached responses: " + e.getMessage(), e);
+                } finally {
+                    pendingClears.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    /**
+     * Waits until the writes to the persistent store made so far are done. Owners of the store should flush
+     * the cache before closing the store.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        if (null != store) {
+            try {
+                storeWriter.submit(() -> {
+                }).get();
+            } catch (ExecutionException e) {
+                // an empty task does not fail
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Records a response served from the cache.
+     */
+    void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    /**
+     * Records a conditional request sent to revalidate an entry.
+     */
+    void recordRevalidation() {
+        revalidations.incrementAndGet();
+    }
+
+    /**
+     * Returns number of responses served from the cache.
+     * @return number of hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns number of requests which found no cached entry.
+     * @return number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns number of conditional requests sent to revalidate cached entries.
+     * @return number of revalidations
+     */
+    public long getRevalidations() {
+        return revalidations.get();
+    }
+
+    /**
+     * Returns number of entries evicted to stay within bounds.
+     * @return number of evictions
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns number of entries loaded from the persistent store.
+     * @return number of store loads
+     */
+    public long getStoreLoads() {
+        return storeLoads.get();
+    }
+
+    /**
+     * Returns number of cached entries.
+     * @return number of entries
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns total size of cached bodies.
+     * @return size of cached bodies in bytes
+     */
+    public long getBytes() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    private void remove(String key) {
+        Entry old = entries.remove(key);
+        if (null != old) {
+            bytes -= old.body.length;
+        }
+    }
+
+    /**
+     * Cached response: validators, body and objects decoded from the body.
+     */
+    public static class Entry {
+
+        private final String eTag;
+        private final String lastModified;
+        private final WireFormat format;
+        private final byte[] body;
+        private final long created;
+        private volatile long validated;
+        private final AtomicBoolean revalidating = new AtomicBoolean();
+
+        private final Map<Type, Object> objects = new ConcurrentHashMap<>();
+
+        public Entry(String eTag, String lastModified, WireFormat format, byte[] body) {
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.format = format;
+            this.body = body;
+            this.created = System.currentTimeMillis();
+            this.validated = created;
+        }
+
+        /**
+         * Creates an entry restored from a persistent store, not validated yet.
+         *
+         * @param eTag         ETag validator, may be null
+         * @param lastModified Last-Modified validator, may be null
+         * @param format       wire format of the body
+         * @param body         body
+         * @param created      when the response was received, in milliseconds since the epoch
+         */
+        public Entry(String eTag, String lastModified, WireFormat format, byte[] body, long created) {
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.format = format;
+            this.body = body;
+            this.created = created;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public WireFormat getFormat() {
+            return format;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * Returns when the response was received.
+         * @return creation time in milliseconds since the epoch
+         */
+        public long getCreated() {
+            return created;
+        }
+
+        /**
+         * Returns when the server last confirmed the entry.
+         * @return validation time in milliseconds since the epoch, 0 if the entry was not validated by this client
+         */
+        public long getValidated() {
+            return validated;
+        }
+
+        void setValidated(long validated) {
+            this.validated = validated;
+        }
+
+        /**
+         * Claims the background revalidation of the entry.
+         *
+         * @return true if no other revalidation is in progress
+         */
+        boolean startRevalidation() {
+            return revalidating.compareAndSet(false, true);
+        }
+
+        void endRevalidation() {
+            revalidating.set(false);
+        }
+
+        /**
+         * Returns the body decoded as the type, decoding it on first request for the type.
+         *
+         * @param type   type of the object
+         * @param reader reader to decode the body with
+         * @param <T>    type of the object
+         * @return decoded object
+         * @throws IOException IOException
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T getObject(TypeReference<T> type, ObjectReader reader) throws IOException {
+            Object result = objects.get(type.getType());
+            if (null == result) {
+                result = reader.readValue(body);
+                if (null != result) {
+                    objects.put(type.getType(), result);
+                }
+            }
+            return (T) result;
+        }
+
+        /**
+         * Remembers an object already decoded from the body.
+         *
+         * @param type   type of the object
+         * @param object decoded object
+         */
+        public void putObject(TypeReference<?> type, Object object) {
+            if (null != object) {
+                objects.put(type.getType(), object);
+            }
+        }
+    }
+}
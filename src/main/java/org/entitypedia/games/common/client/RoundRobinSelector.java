@@ -0,0 +1,19 @@
+package org.entitypedia.games.common.client;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses endpoints in turn.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class RoundRobinSelector implements EndpointSelector {
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Override
+    public Endpoint select(List<Endpoint> endpoints) {
+        return endpoints.get((next.getAndIncrement() & Integer.MAX_VALUE) % endpoints.size());
+    }
+}
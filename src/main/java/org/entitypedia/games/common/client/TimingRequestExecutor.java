@@ -0,0 +1,49 @@
+package org.entitypedia.games.common.client;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import java.io.IOException;
+
+/**
+ * Request executor which records when the request is sent on a connection and when the response headers
+ * arrive into {@link RequestTimings} of the context, if there are any. Response bodies are counted here,
+ * before response interceptors decompress them.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class TimingRequestExecutor extends HttpRequestExecutor {
+
+    @Override
+    protected HttpResponse doSendRequest(HttpRequest request, HttpClientConnection conn, HttpContext context) throws IOException, HttpException {
+        RequestTimings timings = RequestTimings.get(context);
+        if (null != timings) {
+            timings.sendStart = System.nanoTime();
+        }
+        HttpResponse response = super.doSendRequest(request, conn, context);
+        if (null != timings) {
+            timings.sent = System.nanoTime();
+        }
+        return response;
+    }
+
+    @Override
+    protected HttpResponse doReceiveResponse(HttpRequest request, HttpClientConnection conn, HttpContext context) throws HttpException, IOException {
+        HttpResponse response = super.doReceiveResponse(request, conn, context);
+        RequestTimings timings = RequestTimings.get(context);
+        if (null != timings) {
+            timings.received = System.nanoTime();
+            HttpEntity entity = response.getEntity();
+            if (null != timings.bytesReceived && null != entity) {
+                response.setEntity(new CountingEntity(entity, timings.bytesReceived));
+                timings.bytesCounted = true;
+            }
+        }
+        return response;
+    }
+}
@@ -0,0 +1,289 @@
+package org.entitypedia.games.common.client;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records requests and responses of client calls to a gzipped file, to be replayed by the {@code ReplayServer}
+ * and driven by the {@code LoadDriver} of the benchmarks module where the game server is not available. Set it on a client with
+ * {@link GamesCommonClient#setTrafficRecorder}. Only the final response of a call is recorded, not retried
+ * attempts. While recording, responses are read into memory, streamed ones included.
+ * <p>
+ * Records are buffered; the recording is complete once the recorder is closed. A recording cut short,
+ * by a crash for example, loads up to the last complete record. The file holds request and response bodies,
+ * but not headers, so it carries no credentials. Failures to write are logged and do not fail the calls.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TrafficRecorder implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(TrafficRecorder.class);
+
+    private static final int MAGIC = 0x47435452;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 65536;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final Path file;
+    private final DataOutputStream out;
+    private long count;
+    private long errors;
+    private boolean closed;
+
+    /**
+     * Creates a recorder, overwriting the file if it exists.
+     *
+     * @param file recording file
+     * @throws IOException if the file cannot be created
+     */
+    public TrafficRecorder(Path file) throws IOException {
+        this.file = file;
+        Path parent = file.toAbsolutePath().getParent();
+        if (null != parent) {
+            Files.createDirectories(parent);
+        }
+        out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns number of exchanges recorded.
+     * @return number of exchanges
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns number of exchanges which failed to be written.
+     * @return number of write failures
+     */
+    public synchronized long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Records an exchange. The response entity is read and replaced with a decoded in-memory copy, so the caller
+     * processes the response as usual. The request body is recorded if its entity is repeatable.
+     *
+     * @param request  sent request
+     * @param url      request url relative to the api endpoint
+     * @param response received response
+     * @param latency  time from sending the request to receiving the response, in nanoseconds
+     * @throws IOException if the response cannot be read
+     */
+    public void record(HttpUriRequest request, String url, HttpResponse response, long latency) throws IOException {
+        String requestContentType = null;
+        String requestContentEncoding = null;
+        byte[] requestBody = null;
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            if (entity instanceof CountingEntity) {
+                // do not account the copy as sent bytes
+                entity = ((CountingEntity) entity).getWrappedEntity();
+            }
+            requestContentType = getValue(request.getFirstHeader("Content-Type"));
+            if (null != entity) {
+                if (null != entity.getContentType()) {
+                    requestContentType = getValue(entity.getContentType());
+                }
+                requestContentEncoding = getValue(entity.getContentEncoding());
+                if (entity.isRepeatable()) {
+                    ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+                    entity.writeTo(buffer);
+                    requestBody = buffer.toByteArray();
+                }
+            }
+        }
+
+        String responseContentType = getValue(response.getFirstHeader("Content-Type"));
+        byte[] responseBody = EMPTY;
+        HttpEntity entity = response.getEntity();
+        if (null != entity) {
+            if (null != entity.getContentType()) {
+                responseContentType = getValue(entity.getContentType());
+            }
+            try (InputStream in = GamesCommonClient.getContent(response)) {
+                responseBody = GamesCommonClient.inputStreamToByteArray(in);
+            }
+            ByteArrayEntity copy = new ByteArrayEntity(responseBody);
+            copy.setContentType(entity.getContentType());
+            response.setEntity(copy);
+        }
+
+        write(new RecordedExchange(request.getMethod(), url, requestContentType, requestContentEncoding, requestBody,
+                response.getStatusLine().getStatusCode(), responseContentType, responseBody, latency));
+    }
+
+    /**
+     * Writes an exchange to the recording.
+     *
+     * @param exchange exchange to write
+     */
+    public void write(RecordedExchange exchange) {
+        byte[] record;
+        try {
+            // serialize first, so a failure does not leave a partial record in the file
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(256 + exchange.getResponseBody().length);
+            DataOutputStream data = new DataOutputStream(buffer);
+            data.writeUTF(exchange.getMethod());
+            data.writeUTF(exchange.getUrl());
+            writeString(data, exchange.getRequestContentType());
+            writeString(data, exchange.getRequestContentEncoding());
+            writeBytes(data, exchange.getRequestBody());
+            data.writeInt(exchange.getStatus());
+            writeString(data, exchange.getResponseContentType());
+            writeBytes(data, exchange.getResponseBody());
+            data.writeLong(exchange.getLatency());
+            record = buffer.toByteArray();
+        } catch (IOException e) {
+            log.warn("Cannot record " + exchange + ": " + e.getMessage());
+            synchronized (this) {
+                errors++;
+            }
+            return;
+        }
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            try {
+                out.write(record);
+                count++;
+            } catch (IOException e) {
+                if (0 == errors) {
+                    log.warn("Cannot write traffic recording " + file, e);
+                }
+                errors++;
+            }
+        }
+    }
+
+    /**
+     * Flushes buffered records to the file. The file is complete only when the recorder is closed.
+     *
+     * @throws IOException IOException
+     */
+    public synchronized void flush() throws IOException {
+        if (!closed) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            out.close();
+        }
+    }
+
+    /**
+     * Loads a recording.
+     *
+     * @param file recording file
+     * @return recorded exchanges, in order of recording
+     * @throws IOException if the file cannot be read or is not a recording
+     */
+    public static List<RecordedExchange> load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE), BUFFER_SIZE))) {
+            try {
+                if (MAGIC != in.readInt()) {
+                    throw new IOException("Not a traffic recording: " + file);
+                }
+                int version = in.readInt();
+                if (VERSION != version) {
+                    throw new IOException("Unsupported traffic recording version " + version + ": " + file);
+                }
+            } catch (EOFException e) {
+                throw new IOException("Empty traffic recording: " + file, e);
+            }
+
+            List<RecordedExchange> result = new ArrayList<>();
+            while (true) {
+                try {
+                    result.add(read(in));
+                } catch (EOFException e) {
+                    break;
+                }
+            }
+            return result;
+        }
+    }
+
+    private static RecordedExchange read(DataInputStream in) throws IOException {
+        String method = in.readUTF();
+        String url = in.readUTF();
+        String requestContentType = readString(in);
+        String requestContentEncoding = readString(in);
+        byte[] requestBody = readBytes(in);
+        int status = in.readInt();
+        String responseContentType = readString(in);
+        byte[] responseBody = readBytes(in);
+        long latency = in.readLong();
+        return new RecordedExchange(method, url, requestContentType, requestContentEncoding, requestBody,
+                status, responseContentType, null == responseBody ? EMPTY : responseBody, latency);
+    }
+
+    private static String getValue(Header header) {
+        return null == header ? null : header.getValue();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(null != value);
+        if (null != value) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        if (null == value) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(value.length);
+            out.write(value);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (0 > length) {
+            return null;
+        }
+        byte[] result = new byte[length];
+        in.readFully(result);
+        return result;
+    }
+}
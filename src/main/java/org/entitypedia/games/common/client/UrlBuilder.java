@@ -0,0 +1,195 @@
+package org.entitypedia.games.common.client;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds a url by appending query parameters to a base url, in a single buffer. Parameter values are
+ * percent-encoded the same way as {@link java.net.URLEncoder} does with UTF-8, null values are skipped.
+ * <p>
+ * Not thread safe.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class UrlBuilder {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    // characters URLEncoder leaves as is, space is handled separately
+    private static final boolean[] UNRESERVED = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            UNRESERVED[c] = true;
+        }
+        UNRESERVED['-'] = true;
+        UNRESERVED['_'] = true;
+        UNRESERVED['.'] = true;
+        UNRESERVED['*'] = true;
+    }
+
+    private final StringBuilder url;
+    private boolean query;
+
+    /**
+     * Creates a builder with the base url.
+     *
+     * @param url base url, may contain a query
+     */
+    public UrlBuilder(String url) {
+        this(url, 64);
+    }
+
+    /**
+     * Creates a builder with the base url and room for the parameters.
+     *
+     * @param url   base url, may contain a query
+     * @param extra expected length of the parameters
+     */
+    public UrlBuilder(String url, int extra) {
+        this.url = new StringBuilder(url.length() + extra).append(url);
+        this.query = -1 != url.indexOf('?');
+    }
+
+    UrlBuilder(StringBuilder url, boolean query) {
+        this.url = url;
+        this.query = query;
+    }
+
+    /**
+     * Appends an encoded query parameter. Numbers are appended as is, other values are converted to string
+     * and encoded.
+     *
+     * @param name  parameter name
+     * @param value parameter value, null to skip the parameter
+     * @return this builder
+     */
+    public UrlBuilder param(String name, Object value) {
+        if (null != value) {
+            startParam(name);
+            if (value instanceof Integer || value instanceof Long) {
+                url.append(((Number) value).longValue());
+            } else {
+                encode(url, value.toString(), false);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends a query parameter.
+     *
+     * @param name  parameter name
+     * @param value parameter value
+     * @return this builder
+     */
+    public UrlBuilder param(String name, int value) {
+        startParam(name);
+        url.append(value);
+        return this;
+    }
+
+    /**
+     * Appends a query parameter without encoding the value. The value should be already encoded.
+     *
+     * @param name  parameter name
+     * @param value encoded parameter value, null to skip the parameter
+     * @return this builder
+     */
+    public UrlBuilder rawParam(String name, String value) {
+        if (null != value) {
+            startParam(name);
+            url.append(value);
+        }
+        return this;
+    }
+
+    /**
+     * Appends page size and page number parameters.
+     *
+     * @param pageSize page size, may be null
+     * @param pageNo   page number, may be null
+     * @return this builder
+     */
+    public UrlBuilder page(Integer pageSize, Integer pageNo) {
+        return param("pageSize", pageSize).param("pageNo", pageNo);
+    }
+
+    @Override
+    public String toString() {
+        return url.toString();
+    }
+
+    private void startParam(String name) {
+        url.append(query ? '&' : '?').append(name).append('=');
+        query = true;
+    }
+
+    /**
+     * Encodes a string the same way as {@link java.net.URLEncoder} does with UTF-8. Returns the same string
+     * if nothing needs encoding.
+     *
+     * @param string string to encode
+     * @return encoded string
+     */
+    public static String encode(String string) {
+        int length = string.length();
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            if (c >= 128 || !UNRESERVED[c]) {
+                StringBuilder result = new StringBuilder(length + 16).append(string, 0, i);
+                encode(result, string, i, false);
+                return result.toString();
+            }
+        }
+        return string;
+    }
+
+    /**
+     * Appends an encoded string. Query values encode space as +, path segments as %20.
+     *
+     * @param target target buffer
+     * @param string string to encode
+     * @param path   whether the string is a path segment
+     */
+    static void encode(StringBuilder target, String string, boolean path) {
+        encode(target, string, 0, path);
+    }
+
+    private static void encode(StringBuilder target, String string, int start, boolean path) {
+        int length = string.length();
+        int i = start;
+        while (i < length) {
+            char c = string.charAt(i);
+            if (c < 128) {
+                if (UNRESERVED[c]) {
+                    target.append(c);
+                } else if (' ' == c && !path) {
+                    target.append('+');
+                } else {
+                    appendEscaped(target, c);
+                }
+                i++;
+            } else {
+                // encode the whole run of non-ASCII characters at once, so surrogate pairs stay together
+                int end = i + 1;
+                while (end < length && string.charAt(end) >= 128) {
+                    end++;
+                }
+                for (byte b : string.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                    appendEscaped(target, b & 0xFF);
+                }
+                i = end;
+            }
+        }
+    }
+
+    private static void appendEscaped(StringBuilder target, int b) {
+        target.append('%').append(HEX[b >> 4]).append(HEX[b & 0xF]);
+    }
+}
@@ -0,0 +1,62 @@
+package org.entitypedia.games.common.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Formats of request and response bodies.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public enum WireFormat {
+
+    /**
+     * Text JSON.
+     */
+    JSON("application/json"),
+
+    /**
+     * Binary JSON, see <a href="https://github.com/FasterXML/smile-format-specification">Smile format</a>.
+     */
+    SMILE("application/x-jackson-smile");
+
+    private final String contentType;
+
+    WireFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * Returns content type of the format.
+     * @return content type
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Creates a new parser and generator factory for the format.
+     * @return factory for the format
+     */
+    public JsonFactory createFactory() {
+        switch (this) {
+            case SMILE:
+                return new SmileFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+
+    /**
+     * Returns the format of the content type, JSON for unknown or missing content type.
+     *
+     * @param contentType content type, may be null
+     * @return format of the content type
+     */
+    public static WireFormat forContentType(String contentType) {
+        if (null != contentType && contentType.regionMatches(true, 0, SMILE.contentType, 0, SMILE.contentType.length())) {
+            return SMILE;
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,79 @@
+package org.entitypedia.games.common.client;
+
+import org.apache.http.HttpRequest;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class BatchExecutionTest {
+
+    private LocalServer server;
+    private GamesCommonClient client;
+
+    @After
+    public void tearDown() throws Exception {
+        if (null != client) {
+            client.close();
+        }
+        if (null != server) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testGetsUseResponseCache() throws Exception {
+        server = new LocalServer((request, response, context) -> {
+            if (null != request.getFirstHeader("If-None-Match")) {
+                response.setStatusCode(304);
+            } else {
+                response.setHeader("ETag", "\"v1\"");
+                response.setEntity(new StringEntity("42", ContentType.APPLICATION_JSON));
+            }
+        });
+        client = new GamesCommonClient(server.getUrl(), "key", "secret") {
+        };
+        client.setResponseCache(new ResponseCache(100, 1 << 20, 0));
+
+        List<BatchRequest<Integer>> requests = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            requests.add(BatchRequest.get(server.getUrl() + "count", GamesCommonClient.INTEGER_TYPE_REFERENCE));
+        }
+        List<BatchResult<Integer>> results = client.executeBatch(requests, 1, 0);
+        for (BatchResult<Integer> result : results) {
+            assertEquals(Integer.valueOf(42), result.get());
+        }
+        List<HttpRequest> received = server.getRequests();
+        assertTrue(1 <= received.size());
+        for (HttpRequest request : received.subList(1, received.size())) {
+            assertNotNull(request.getFirstHeader("If-None-Match"));
+        }
+        assertTrue(0 < client.getResponseCache().getHits());
+    }
+
+    @Test
+    public void testPostsAndEmptyGets() throws Exception {
+        server = LocalServer.json(200, "[\"a\"]");
+        client = new GamesCommonClient(server.getUrl(), "key", "secret") {
+        };
+        client.setResponseCache(new ResponseCache(100, 1 << 20, 0));
+        List<BatchRequest<?>> requests = Arrays.asList(
+                BatchRequest.post(server.getUrl() + "echo", Arrays.asList("a"), null),
+                BatchRequest.get(server.getUrl() + "empty", null));
+        List<BatchResult<Object>> results = client.executeBatch(requests, 0);
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals(2, server.getRequests().size());
+    }
+}
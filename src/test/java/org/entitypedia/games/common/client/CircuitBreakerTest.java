@@ -0,0 +1,93 @@
+package org.entitypedia.games.common.client;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class CircuitBreakerTest {
+
+    private static final long OPEN_TIME = 50;
+
+    private static void assertRejected(CircuitBreaker breaker) {
+        try {
+            breaker.acquire();
+            fail("Call should be rejected");
+        } catch (CircuitBreakerOpenException e) {
+            // expected
+        }
+    }
+
+    private static CircuitBreaker open() {
+        CircuitBreaker breaker = new CircuitBreaker("http://localhost/", 3, OPEN_TIME);
+        for (int i = 0; i < 3; i++) {
+            breaker.acquire();
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+
+    @Test
+    public void testOpensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("http://localhost/", 3, OPEN_TIME);
+        breaker.acquire();
+        breaker.onFailure();
+        breaker.acquire();
+        breaker.onFailure();
+        breaker.acquire();
+        breaker.onSuccess();
+        breaker.acquire();
+        breaker.onFailure();
+        breaker.acquire();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.acquire();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertRejected(breaker);
+        assertRejected(breaker);
+        assertEquals(2, breaker.getRejected());
+    }
+
+    @Test
+    public void testProbeSuccessCloses() throws Exception {
+        CircuitBreaker breaker = open();
+        Thread.sleep(OPEN_TIME + 10);
+        breaker.acquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // a single probe at a time
+        assertRejected(breaker);
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.acquire();
+        breaker.acquire();
+    }
+
+    @Test
+    public void testProbeFailureReopens() throws Exception {
+        CircuitBreaker breaker = open();
+        Thread.sleep(OPEN_TIME + 10);
+        breaker.acquire();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertRejected(breaker);
+        Thread.sleep(OPEN_TIME + 10);
+        breaker.acquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    public void testIgnoredProbeLetsAnotherThrough() throws Exception {
+        CircuitBreaker breaker = open();
+        Thread.sleep(OPEN_TIME + 10);
+        breaker.acquire();
+        breaker.onIgnored();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.acquire();
+        assertRejected(breaker);
+    }
+}
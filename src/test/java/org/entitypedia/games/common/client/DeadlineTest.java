@@ -0,0 +1,240 @@
+package org.entitypedia.games.common.client;
+
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that deadlines reach work done in background on behalf of a call.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class DeadlineTest {
+
+    private LocalServer server;
+    private GamesCommonClient client;
+
+    @After
+    public void tearDown() throws Exception {
+        if (null != client) {
+            client.close();
+        }
+        if (null != server) {
+            server.close();
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+     * Body which trickles trailing whitespace for the duration, faster than any read timeout.
+     */
+    private static class SlowEntity extends AbstractHttpEntity {
+
+        private final long duration;
+
+        private SlowEntity(long duration) {
+            this.duration = duration;
+            setContentType(ContentType.APPLICATION_JSON.toString());
+            setChunked(true);
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return false;
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public InputStream getContent() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            out.write('4');
+            out.write('2');
+            out.flush();
+            for (long i = 0; i < duration / 100; i++) {
+                sleep(100);
+                out.write(' ');
+                out.flush();
+            }
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return true;
+        }
+    }
+
+    @Test
+    public void testEarlier() {
+        Deadline a = Deadline.after(1, TimeUnit.SECONDS);
+        Deadline b = Deadline.after(1, TimeUnit.MINUTES);
+        assertSame(a, Deadline.earlier(a, b));
+        assertSame(a, Deadline.earlier(b, a));
+        assertSame(b, Deadline.earlier(null, b));
+        assertSame(a, Deadline.earlier(a, null));
+        assertNull(Deadline.earlier(null, null));
+    }
+
+    @Test
+    public void testBatchUnderCallerDeadline() throws Exception {
+        server = new LocalServer((request, response, context) -> {
+            sleep(3000);
+            response.setEntity(new StringEntity("42", ContentType.APPLICATION_JSON));
+        });
+        client = new GamesCommonClient(server.getUrl(), "key", "secret") {
+        };
+        List<BatchRequest<Integer>> requests = Arrays.asList(
+                BatchRequest.get(server.getUrl() + "a", GamesCommonClient.INTEGER_TYPE_REFERENCE),
+                BatchRequest.get(server.getUrl() + "b", GamesCommonClient.INTEGER_TYPE_REFERENCE));
+        long start = System.nanoTime();
+        List<BatchResult<Integer>> results;
+        try (Deadline.Scope scope = Deadline.after(300, TimeUnit.MILLISECONDS).enter()) {
+            results = client.executeBatch(requests, 2, 0);
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        for (BatchResult<Integer> result : results) {
+            assertFalse(result.isSuccess());
+        }
+    }
+
+    @Test
+    public void testPrefetchUnderConsumerDeadline() throws Exception {
+        final LinkedBlockingQueue<Object> deadlines = new LinkedBlockingQueue<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Deadline deadline = Deadline.after(1, TimeUnit.MINUTES);
+            PageIterator<Integer> iterator;
+            try (Deadline.Scope scope = deadline.enter()) {
+                iterator = new PageIterator<>(pageNo -> {
+                    Deadline current = Deadline.current();
+                    deadlines.add(null == current ? "none" : current);
+                    return pageNo < 2 ? Arrays.asList(pageNo, pageNo) : new ArrayList<>();
+                }, 2, 0, 2, executor);
+                assertTrue(iterator.hasNext());
+            }
+            for (int i = 0; i < 3; i++) {
+                assertSame(deadline, deadlines.poll(10, TimeUnit.SECONDS));
+            }
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRevalidationUnderCallerDeadline() throws Exception {
+        server = new LocalServer((request, response, context) -> {
+            response.setHeader("ETag", "\"1\"");
+            response.setEntity(new StringEntity("42", ContentType.APPLICATION_JSON));
+        });
+        final LinkedBlockingQueue<Object> deadlines = new LinkedBlockingQueue<>();
+        client = new GamesCommonClient(server.getUrl(), "key", "secret") {
+            @Override
+            protected RequestEvent startEvent(HttpUriRequest request) {
+                if (request.containsHeader("If-None-Match")) {
+                    Deadline current = Deadline.current();
+                    deadlines.add(null == current ? "none" : current);
+                }
+                return super.startEvent(request);
+            }
+        };
+        ResponseCache cache = new ResponseCache(10, 1 << 20, 0);
+        cache.setBackgroundRevalidationInterval(0);
+        client.setResponseCache(cache);
+
+        assertEquals(Integer.valueOf(42), client.doSimpleGet(server.getUrl() + "answer", GamesCommonClient.INTEGER_TYPE_REFERENCE));
+        Deadline deadline = Deadline.after(1, TimeUnit.MINUTES);
+        try (Deadline.Scope scope = deadline.enter()) {
+            assertEquals(Integer.valueOf(42), client.doSimpleGet(server.getUrl() + "answer", GamesCommonClient.INTEGER_TYPE_REFERENCE));
+        }
+        assertSame(deadline, deadlines.poll(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testAbortReachesWinningHedgedCopy() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        server = new LocalServer((request, response, context) -> {
+            if (1 == count.incrementAndGet()) {
+                // the original, overtaken by the copy
+                sleep(3000);
+                response.setEntity(new StringEntity("42", ContentType.APPLICATION_JSON));
+            } else {
+                // the copy wins and then stalls in the body
+                response.setEntity(new SlowEntity(3000));
+            }
+        });
+        client = new GamesCommonClient(server.getUrl(), "key", "secret") {
+            @Override
+            protected long getHedgeDelay(HttpUriRequest request) {
+                return 50;
+            }
+        };
+        long start = System.nanoTime();
+        try (Deadline.Scope scope = Deadline.after(500, TimeUnit.MILLISECONDS).enter()) {
+            client.doSimpleGet(server.getUrl() + "answer", GamesCommonClient.INTEGER_TYPE_REFERENCE);
+            fail("Expected deadline exceeded");
+        } catch (DeadlineExceededException e) {
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        }
+        assertEquals(2, count.get());
+    }
+
+    @Test
+    public void testPropagate() throws Exception {
+        assertNull(Deadline.current());
+        Runnable plain = () -> {
+        };
+        assertSame(plain, Deadline.propagate(plain));
+        Deadline deadline = Deadline.after(1, TimeUnit.MINUTES);
+        Runnable wrapped;
+        try (Deadline.Scope scope = deadline.enter()) {
+            wrapped = Deadline.propagate(() -> assertSame(deadline, Deadline.current()));
+        }
+        Thread thread = new Thread(wrapped);
+        final Throwable[] error = new Throwable[1];
+        thread.setUncaughtExceptionHandler((t, e) -> error[0] = e);
+        thread.start();
+        thread.join();
+        assertNull(error[0]);
+        assertNull(Deadline.current());
+    }
+}
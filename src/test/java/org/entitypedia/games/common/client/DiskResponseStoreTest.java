@@ -0,0 +1,156 @@
+package org.entitypedia.games.common.client;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class DiskResponseStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static ResponseCache.Entry entry(String body) {
+        return new ResponseCache.Entry("\"" + body.hashCode() + "\"", null, WireFormat.JSON, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String body(DiskResponseStore store, String key) throws IOException {
+        ResponseCache.Entry entry = store.get(key);
+        return null == entry ? null : new String(entry.getBody(), StandardCharsets.UTF_8);
+    }
+
+    private static void flipLastByte(Path file, int fromEnd) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            long position = channel.size() - fromEnd;
+            channel.read(b, position);
+            b.put(0, (byte) (b.get(0) ^ 0x55));
+            b.rewind();
+            channel.write(b, position);
+        }
+    }
+
+    @Test
+    public void testReopen() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("cache/responses.log");
+        try (DiskResponseStore store = new DiskResponseStore(file, 1 << 20)) {
+            store.put("a", entry("[1]"));
+            store.put("b", entry("[2]"));
+            store.put("a", entry("[3]"));
+            store.remove("b");
+        }
+        try (DiskResponseStore store = new DiskResponseStore(file, 1 << 20)) {
+            assertEquals(1, store.size());
+            assertEquals("[3]", body(store, "a"));
+            assertEquals("\"" + "[3]".hashCode() + "\"", store.get("a").getETag());
+            assertNull(store.get("b"));
+        }
+    }
+
+    @Test
+    public void testCreatedOwnerOnly() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("responses.log");
+        Assume.assumeNotNull(Files.getFileAttributeView(folder.getRoot().toPath(), PosixFileAttributeView.class));
+        try (DiskResponseStore store = new DiskResponseStore(file, 1 << 20)) {
+            assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+        }
+    }
+
+    @Test
+    public void testTruncatedTail() throws Exception {
+        Path file = folder.newFile("responses.log").toPath();
+        Files.delete(file);
+        long firstEnd;
+        try (DiskResponseStore store = new DiskResponseStore(file, 1 << 20)) {
+            store.put("a", entry("[1,2,3]"));
+            firstEnd = store.getFileSize();
+            store.put("b", entry("[4,5,6]"));
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        try (DiskResponseStore store = new DiskResponseStore(file, 1 << 20)) {
+            assertEquals(1, store.size());
+            assertEquals("[1,2,3]", body(store, "a"));
+            assertNull(store.get("b"));
+            assertEquals(firstEnd, store.getFileSize());
+            assertEquals(firstEnd, Files.size(file));
+            store.put("b", entry("[7]"));
+        }
+        try (DiskResponseStore store = new DiskResponseStore(file, 1 << 20)) {
+            assertEquals(2, store.size());
+            assertEquals("[7]", body(store, "b"));
+        }
+    }
+
+    @Test
+    public void testChecksumMismatch() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("responses.log");
+        long firstEnd;
+        try (DiskResponseStore store = new DiskResponseStore(file, 1 << 20)) {
+            store.put("a", entry("[1,2,3]"));
+            firstEnd = store.getFileSize();
+            store.put("b", entry("[4,5,6]"));
+        }
+        long size = Files.size(file);
+        // last byte of the body, before the checksum
+        flipLastByte(file, 5);
+        assertEquals(size, Files.size(file));
+        try (DiskResponseStore store = new DiskResponseStore(file, 1 << 20)) {
+            assertEquals(1, store.size());
+            assertEquals("[1,2,3]", body(store, "a"));
+            assertNull(store.get("b"));
+            assertEquals(firstEnd, Files.size(file));
+        }
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("responses.log");
+        long maxBytes = 4096;
+        char[] chars = new char[400];
+        try (DiskResponseStore store = new DiskResponseStore(file, maxBytes)) {
+            int i = 0;
+            while (0 == store.getCompactions()) {
+                Arrays.fill(chars, (char) ('a' + i % 26));
+                store.put("key" + i, entry(new String(chars)));
+                assertTrue(store.getFileSize() <= maxBytes);
+                i++;
+            }
+            assertTrue(store.getFileSize() <= maxBytes / 4 * 3);
+            assertTrue(store.getFileSize() > maxBytes / 2);
+            assertEquals(store.getFileSize(), Files.size(file));
+            int last = i - 1;
+            assertNotNull(store.get("key" + last));
+            assertNull(store.get("key0"));
+            int kept = store.size();
+            store.close();
+            try (DiskResponseStore reopened = new DiskResponseStore(file, maxBytes)) {
+                assertEquals(kept, reopened.size());
+                Arrays.fill(chars, (char) ('a' + last % 26));
+                assertArrayEquals(new String(chars).getBytes(StandardCharsets.UTF_8), reopened.get("key" + last).getBody());
+            }
+            assertTrue(Files.notExists(file.resolveSibling("responses.log.tmp")));
+        }
+    }
+}
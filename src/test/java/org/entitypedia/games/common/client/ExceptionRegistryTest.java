@@ -0,0 +1,176 @@
+package org.entitypedia.games.common.client;
+
+import org.entitypedia.games.common.exceptions.ExceptionDetails;
+import org.entitypedia.games.common.exceptions.GameException;
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that the registry maps error details as processError did with reflection on each call.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ExceptionRegistryTest {
+
+    private static final AtomicInteger FAILING_CONSTRUCTOR_CALLS = new AtomicInteger();
+
+    public static class ParamsException extends GameException {
+        public ParamsException(Object[] params) {
+            super(params);
+        }
+    }
+
+    public static class MessageException extends GameException {
+        public MessageException(String message) {
+            super(message);
+        }
+    }
+
+    public static class NoConstructorException extends GameException {
+        public NoConstructorException() {
+        }
+    }
+
+    public static class FailingException extends RuntimeException {
+        public FailingException(String message) {
+            FAILING_CONSTRUCTOR_CALLS.incrementAndGet();
+            throw new ClassCastException(message);
+        }
+    }
+
+    public abstract static class AbstractException extends RuntimeException {
+        public AbstractException(String message) {
+            super(message);
+        }
+    }
+
+    private static final String[] CLASSES = {
+            IllegalStateException.class.getName(),
+            GameException.class.getName(),
+            ParamsException.class.getName(),
+            MessageException.class.getName(),
+            NoConstructorException.class.getName(),
+            FailingException.class.getName(),
+            AbstractException.class.getName(),
+            java.io.IOException.class.getName(),
+            Throwable.class.getName(),
+            Thread.class.getName(),
+            "org.entitypedia.games.common.exceptions.MissingOnClientException",
+    };
+
+    private static ExceptionDetails details(String exceptionClass) {
+        ExceptionDetails details = new ExceptionDetails();
+        details.setExceptionClass(exceptionClass);
+        details.setErrorMessage("Something went wrong");
+        details.setParams(new Object[]{"word", 42});
+        return details;
+    }
+
+    /**
+     * The reflective mapping of processError before the registry.
+     */
+    @SuppressWarnings("unchecked")
+    private static RuntimeException reflect(ExceptionDetails details) {
+        Class clazz = GameException.class;
+        try {
+            clazz = Class.forName(details.getExceptionClass());
+        } catch (ClassNotFoundException e) {
+            // mapped as games exception
+        }
+        try {
+            if (GameException.class.isAssignableFrom(clazz)) {
+                Constructor<? extends GameException> constructor;
+                try {
+                    constructor = clazz.getConstructor(Object[].class);
+                    Object arg = details.getParams();
+                    return constructor.newInstance(arg);
+                } catch (NoSuchMethodException e) {
+                    try {
+                        constructor = clazz.getConstructor(String.class);
+                    } catch (NoSuchMethodException ex) {
+                        return null;
+                    }
+                    return constructor.newInstance(details.getErrorMessage());
+                }
+            } else if (Throwable.class.isAssignableFrom(clazz)) {
+                Constructor<? extends Throwable> constructor;
+                try {
+                    constructor = clazz.getConstructor(String.class);
+                } catch (NoSuchMethodException e) {
+                    return new GameException("Cannot find String constructor for exception: " + clazz.getName(), e);
+                }
+                Throwable t = constructor.newInstance(details.getErrorMessage());
+                if (RuntimeException.class.isAssignableFrom(clazz)) {
+                    return (RuntimeException) t;
+                }
+                return new GameException(details.getErrorMessage(), t);
+            } else {
+                return new GameException(details.getExceptionClass() + " is not assignable from Throwable");
+            }
+        } catch (InstantiationException | InvocationTargetException | IllegalAccessException e) {
+            throw new GameException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Describes the exception returned or thrown by the mapping, with its causes.
+     */
+    private static String describe(Mapping mapping, ExceptionDetails details) {
+        Throwable t;
+        String outcome;
+        try {
+            t = mapping.map(details);
+            outcome = "returned";
+        } catch (GameException e) {
+            t = e;
+            outcome = "thrown";
+        }
+        StringBuilder result = new StringBuilder(outcome);
+        for (; null != t; t = t.getCause()) {
+            result.append(' ').append(t.getClass().getName()).append(": ").append(t.getMessage());
+        }
+        return result.toString();
+    }
+
+    private interface Mapping {
+        RuntimeException map(ExceptionDetails details);
+    }
+
+    @Test
+    public void testSameAsReflection() {
+        ExceptionRegistry registry = new ExceptionRegistry();
+        for (String exceptionClass : CLASSES) {
+            ExceptionDetails details = details(exceptionClass);
+            String expected = describe(ExceptionRegistryTest::reflect, details);
+            // resolving and resolved factory
+            assertEquals(exceptionClass, expected, describe(registry::create, details));
+            assertEquals(exceptionClass, expected, describe(registry::create, details));
+        }
+    }
+
+    @Test
+    public void testNoConstructorGivesNull() {
+        assertNull(new ExceptionRegistry().create(details(NoConstructorException.class.getName())));
+    }
+
+    @Test
+    public void testFailingConstructorInvokedOnce() {
+        ExceptionRegistry registry = new ExceptionRegistry();
+        FAILING_CONSTRUCTOR_CALLS.set(0);
+        try {
+            registry.create(details(FailingException.class.getName()));
+            fail("Expected failure");
+        } catch (GameException e) {
+            assertEquals(InvocationTargetException.class, e.getCause().getClass());
+            assertEquals(ClassCastException.class, e.getCause().getCause().getClass());
+        }
+        assertEquals(1, FAILING_CONSTRUCTOR_CALLS.get());
+    }
+}
@@ -0,0 +1,74 @@
+package org.entitypedia.games.common.client;
+
+import org.entitypedia.games.common.exceptions.GameException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class GamesCommonClientAsyncTest {
+
+    private static final String WORKER = "games-client-worker-";
+
+    private LocalServer server;
+    private GamesCommonClient client;
+
+    @After
+    public void tearDown() throws Exception {
+        if (null != client) {
+            client.close();
+        }
+        if (null != server) {
+            server.close();
+        }
+    }
+
+    private void start(int status, String body) throws Exception {
+        server = LocalServer.json(status, body);
+        client = new GamesCommonClient(server.getUrl(), "key", "secret") {
+        };
+    }
+
+    @Test
+    public void testResponseDecodedOnExecutor() throws Exception {
+        start(200, "42");
+        CompletableFuture<String> thread = client.doSimpleGetAsync(server.getUrl() + "answer", GamesCommonClient.INTEGER_TYPE_REFERENCE)
+                .thenApply(value -> {
+                    assertEquals(Integer.valueOf(42), value);
+                    return Thread.currentThread().getName();
+                });
+        assertTrue(thread.get(10, TimeUnit.SECONDS).startsWith(WORKER));
+    }
+
+    @Test
+    public void testErrorMappedOnExecutor() throws Exception {
+        start(404, "{\"exceptionClass\":\"" + GameException.class.getName() + "\",\"errorMessage\":\"Not found\"}");
+        CompletableFuture<String> thread = client.doSimpleGetAsync(server.getUrl() + "missing", GamesCommonClient.INTEGER_TYPE_REFERENCE)
+                .handle((value, error) -> {
+                    assertTrue(error instanceof GameException);
+                    return Thread.currentThread().getName();
+                });
+        assertTrue(thread.get(10, TimeUnit.SECONDS).startsWith(WORKER));
+    }
+
+    @Test
+    public void testFailsWhenExecutorShutDown() throws Exception {
+        start(200, "42");
+        client.getExecutor().shutdown();
+        try {
+            client.doSimpleGetAsync(server.getUrl() + "answer", GamesCommonClient.INTEGER_TYPE_REFERENCE).get(10, TimeUnit.SECONDS);
+            fail("Expected failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof GameException);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.entitypedia.games.common.client;
+
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class GamesCommonClientTest {
+
+    private static int countEvictors() {
+        int result = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("Connection evictor") && thread.isAlive()) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    private static void awaitEvictors(int expected) throws InterruptedException {
+        for (int i = 0; i < 100 && expected != countEvictors(); i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, countEvictors());
+    }
+
+    @Test
+    public void testEvictorStopsOnClose() throws Exception {
+        int before = countEvictors();
+        GamesCommonClient client = new GamesCommonClient("http://localhost/", "key", "secret") {
+        };
+        awaitEvictors(before + 1);
+        client.close();
+        awaitEvictors(before);
+    }
+
+    @Test
+    public void testReplacedHttpClientClosed() throws Exception {
+        int before = countEvictors();
+        try (LocalServer server = LocalServer.json(200, "42")) {
+            GamesCommonClient client = new GamesCommonClient(server.getUrl(), "key", "secret") {
+            };
+            HttpClient created = client.getHttpClient();
+            CloseableHttpClient custom = HttpClients.createMinimal();
+            client.setHttpClient(custom);
+            awaitEvictors(before);
+            try {
+                created.execute(new HttpGet(server.getUrl()));
+                fail("Expected closed pool");
+            } catch (IllegalStateException e) {
+                // pool shut down
+            }
+            assertEquals(Integer.valueOf(42), client.doSimpleGet(server.getUrl(), GamesCommonClient.INTEGER_TYPE_REFERENCE));
+            assertNull(client.getConnectionPoolStats());
+            client.close();
+        }
+    }
+
+    @Test
+    public void testAbortedAttemptsSampledForHedging() throws Exception {
+        try (LocalServer server = new LocalServer((request, response, context) -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        })) {
+            GamesCommonClientConfig config = new GamesCommonClientConfig();
+            config.setHedgeRequests(true);
+            config.setMinHedgeDelay(0);
+            GamesCommonClient client = new GamesCommonClient(server.getUrl(), "key", "secret", config) {
+            };
+            try {
+                HttpGet probe = new HttpGet(server.getUrl() + "slow");
+                assertEquals(-1, client.getHedgeDelay(probe));
+                for (int i = 0; i < 20; i++) {
+                    Deadline.Scope scope = Deadline.after(50, TimeUnit.MILLISECONDS).enter();
+                    try {
+                        client.doEmptyGet(server.getUrl() + "slow");
+                        fail("Expected deadline exceeded");
+                    } catch (DeadlineExceededException e) {
+                        // aborted after 50 ms
+                    } finally {
+                        scope.close();
+                    }
+                }
+                long delay = client.getHedgeDelay(probe);
+                assertTrue("hedge delay " + delay, 40 <= delay);
+            } finally {
+                client.close();
+            }
+        }
+    }
+}
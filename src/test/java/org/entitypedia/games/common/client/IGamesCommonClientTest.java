@@ -0,0 +1,54 @@
+package org.entitypedia.games.common.client;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class IGamesCommonClientTest {
+
+    /**
+     * Implements only the methods of the first release.
+     */
+    private static class LegacyClient implements IGamesCommonClient {
+
+        private String apiEndpoint;
+        private boolean signConnection;
+
+        @Override
+        public String getApiEndpoint() {
+            return apiEndpoint;
+        }
+
+        @Override
+        public void setApiEndpoint(String apiEndpoint) {
+            this.apiEndpoint = apiEndpoint;
+        }
+
+        @Override
+        public boolean getSignConnection() {
+            return signConnection;
+        }
+
+        @Override
+        public void setSignConnection(boolean signConnection) {
+            this.signConnection = signConnection;
+        }
+    }
+
+    @Test
+    public void testLegacyImplementation() throws Exception {
+        try (IGamesCommonClient client = new LegacyClient()) {
+            assertNull(client.getConnectionPoolStats());
+            assertNull(client.getMetrics());
+        }
+    }
+
+    @Test
+    public void testNoSocketTimeoutByDefault() {
+        assertEquals(0, new GamesCommonClientConfig().getSocketTimeout());
+    }
+}
@@ -0,0 +1,103 @@
+package org.entitypedia.games.common.client;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class LatencyHistogramTest {
+
+    private static void assertBucket(long micros) {
+        int bucket = LatencyHistogram.getBucket(micros);
+        long upper = LatencyHistogram.getUpperBound(bucket);
+        assertTrue(micros + " above bucket " + bucket, micros <= upper);
+        if (0 < bucket) {
+            assertTrue(micros + " below bucket " + bucket, micros > LatencyHistogram.getUpperBound(bucket - 1));
+        }
+        // 8 sub-buckets per power of two
+        assertTrue(micros + " in too wide bucket " + bucket, upper - micros <= micros / 8);
+    }
+
+    @Test
+    public void testLinearBuckets() {
+        for (int micros = 0; micros < 16; micros++) {
+            assertEquals(micros, LatencyHistogram.getBucket(micros));
+            assertEquals(micros, LatencyHistogram.getUpperBound(micros));
+        }
+    }
+
+    @Test
+    public void testBucketBounds() {
+        for (long micros = 0; micros < 100000; micros++) {
+            assertBucket(micros);
+        }
+        for (long micros = 100000; 0 < micros && micros < Long.MAX_VALUE / 3; micros = micros * 3 + 1) {
+            assertBucket(micros - 1);
+            assertBucket(micros);
+            assertBucket(micros + 1);
+        }
+        assertBucket(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testBucketsContiguous() {
+        int previous = 0;
+        for (long micros = 1; micros < 1 << 20; micros++) {
+            int bucket = LatencyHistogram.getBucket(micros);
+            assertTrue(bucket == previous || bucket == previous + 1);
+            previous = bucket;
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 100; millis >= 1; millis--) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+        LatencyStats stats = histogram.getStats();
+        assertEquals(100, stats.getCount());
+        assertEquals(100, histogram.getCount());
+        assertEquals(50.5, stats.getMean(), 1e-9);
+        assertEquals(100.0, stats.getMax(), 1e-9);
+        assertTrue(stats.getP50() + " p50", 50 <= stats.getP50() && stats.getP50() <= 50 * 1.125);
+        assertTrue(stats.getP99() + " p99", 99 <= stats.getP99() && stats.getP99() <= 100);
+        assertEquals(100.0, stats.getP999(), 1e-9);
+    }
+
+    @Test
+    public void testPercentilesOfEqualValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(12345));
+        }
+        LatencyStats stats = histogram.getStats();
+        // bucket bounds are capped by the largest recorded value
+        assertEquals(12.345, stats.getP50(), 1e-9);
+        assertEquals(12.345, stats.getP999(), 1e-9);
+        assertEquals(12.345, stats.getMean(), 1e-9);
+    }
+
+    @Test
+    public void testEmptyAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-1);
+        LatencyStats stats = histogram.getStats();
+        assertEquals(0, stats.getCount());
+        assertEquals(0.0, stats.getMean(), 0);
+        assertEquals(0.0, stats.getP99(), 0);
+        assertEquals(0.0, stats.getMax(), 0);
+
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(5));
+        assertEquals(1, histogram.getCount());
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getStats().getCount());
+        assertEquals(0.0, histogram.getStats().getMax(), 0);
+    }
+}
@@ -0,0 +1,72 @@
+package org.entitypedia.games.common.client;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.bootstrap.HttpServer;
+import org.apache.http.impl.bootstrap.ServerBootstrap;
+import org.apache.http.protocol.HttpRequestHandler;
+import org.apache.http.util.EntityUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loopback HTTP server for tests. Keeps the requests it receives.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class LocalServer implements Closeable {
+
+    private final HttpServer server;
+    private final List<HttpRequest> requests = new CopyOnWriteArrayList<>();
+
+    public LocalServer(final HttpRequestHandler handler) throws IOException {
+        server = ServerBootstrap.bootstrap()
+                .setLocalAddress(InetAddress.getLoopbackAddress())
+                .setSocketConfig(SocketConfig.custom().setTcpNoDelay(true).build())
+                .registerHandler("*", (request, response, context) -> {
+                    if (request instanceof HttpEntityEnclosingRequest) {
+                        EntityUtils.consume(((HttpEntityEnclosingRequest) request).getEntity());
+                    }
+                    requests.add(request);
+                    handler.handle(request, response, context);
+                })
+                .create();
+        server.start();
+    }
+
+    /**
+     * Creates a server answering every request with the status and JSON body.
+     *
+     * @param status status
+     * @param body   JSON body
+     * @return started server
+     * @throws IOException if the server cannot be started
+     */
+    public static LocalServer json(final int status, final String body) throws IOException {
+        return new LocalServer((request, response, context) -> {
+            response.setStatusCode(status);
+            response.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+        });
+    }
+
+    public String getUrl() {
+        return "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getLocalPort() + "/";
+    }
+
+    public List<HttpRequest> getRequests() {
+        return requests;
+    }
+
+    @Override
+    public void close() {
+        server.shutdown(1, TimeUnit.SECONDS);
+    }
+}
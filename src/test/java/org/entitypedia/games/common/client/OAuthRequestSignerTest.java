@@ -0,0 +1,160 @@
+package org.entitypedia.games.common.client;
+
+import oauth.signpost.OAuth;
+import oauth.signpost.OAuthConsumer;
+import oauth.signpost.commonshttp.CommonsHttpOAuthConsumer;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicNameValuePair;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that {@link OAuthRequestSigner} produces the same Authorization header as signpost.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class OAuthRequestSignerTest {
+
+    private static final String KEY = "consumer key";
+    private static final String SECRET = "consumer+secret/=";
+    private static final String TOKEN = "token&1";
+    private static final String TOKEN_SECRET = "token secret~2";
+
+    private static final String TIMESTAMP = "1300000000";
+    private static final String NONCE = "-4242424242424242";
+
+    private static final String URL = "http://games.example.org:8080/api/words/search?q=na%C3%AFve+caf%C3%A9&pageSize=10&order=%2Bname";
+
+    private static class FixedSigner extends OAuthRequestSigner {
+
+        private FixedSigner(OAuthConsumer consumer) {
+            super(consumer);
+        }
+
+        @Override
+        protected String generateTimestamp() {
+            return TIMESTAMP;
+        }
+
+        @Override
+        protected String generateNonce() {
+            return NONCE;
+        }
+    }
+
+    private static class FixedConsumer extends CommonsHttpOAuthConsumer {
+
+        private FixedConsumer(String consumerKey, String consumerSecret) {
+            super(consumerKey, consumerSecret);
+        }
+
+        @Override
+        protected String generateTimestamp() {
+            return TIMESTAMP;
+        }
+
+        @Override
+        protected String generateNonce() {
+            return NONCE;
+        }
+    }
+
+    private interface RequestFactory {
+        HttpUriRequest create() throws Exception;
+    }
+
+    private static HttpUriRequest get() {
+        return new HttpGet(URL);
+    }
+
+    private static HttpUriRequest jsonPost() {
+        HttpPost post = new HttpPost(URL);
+        post.setEntity(new StringEntity("{\"name\":\"café\",\"clues\":[1,2]}", ContentType.APPLICATION_JSON));
+        return post;
+    }
+
+    private static HttpUriRequest formPost() throws Exception {
+        HttpPost post = new HttpPost(URL);
+        List<NameValuePair> form = Arrays.asList(
+                new BasicNameValuePair("word", "naïve café"),
+                new BasicNameValuePair("clue", "a+b=c&d"),
+                new BasicNameValuePair("pageSize", "20"));
+        post.setEntity(new UrlEncodedFormEntity(form, StandardCharsets.UTF_8));
+        return post;
+    }
+
+    private static void assertSameHeader(RequestFactory factory, boolean withToken) throws Exception {
+        FixedConsumer consumer = new FixedConsumer(KEY, SECRET);
+        FixedConsumer reference = new FixedConsumer(KEY, SECRET);
+        if (withToken) {
+            consumer.setTokenWithSecret(TOKEN, TOKEN_SECRET);
+            reference.setTokenWithSecret(TOKEN, TOKEN_SECRET);
+        }
+
+        HttpUriRequest expected = factory.create();
+        reference.sign(expected);
+        HttpUriRequest actual = factory.create();
+        new FixedSigner(consumer).sign(actual);
+
+        String header = actual.getFirstHeader(OAuth.HTTP_AUTHORIZATION_HEADER).getValue();
+        assertEquals(expected.getFirstHeader(OAuth.HTTP_AUTHORIZATION_HEADER).getValue(), header);
+        assertEquals(1, actual.getHeaders(OAuth.HTTP_AUTHORIZATION_HEADER).length);
+        assertEquals(withToken, header.contains(OAuth.OAUTH_TOKEN + "="));
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        assertSameHeader(OAuthRequestSignerTest::get, false);
+    }
+
+    @Test
+    public void testGetWithToken() throws Exception {
+        assertSameHeader(OAuthRequestSignerTest::get, true);
+    }
+
+    @Test
+    public void testJsonPost() throws Exception {
+        assertSameHeader(OAuthRequestSignerTest::jsonPost, false);
+    }
+
+    @Test
+    public void testJsonPostWithToken() throws Exception {
+        assertSameHeader(OAuthRequestSignerTest::jsonPost, true);
+    }
+
+    @Test
+    public void testFormPost() throws Exception {
+        assertSameHeader(OAuthRequestSignerTest::formPost, false);
+    }
+
+    @Test
+    public void testFormPostWithToken() throws Exception {
+        assertSameHeader(OAuthRequestSignerTest::formPost, true);
+    }
+
+    @Test
+    public void testResignReplacesHeader() throws Exception {
+        FixedConsumer consumer = new FixedConsumer(KEY, SECRET);
+        OAuthRequestSigner signer = new OAuthRequestSigner(consumer);
+        HttpUriRequest request = get();
+        signer.sign(request);
+        String first = request.getFirstHeader(OAuth.HTTP_AUTHORIZATION_HEADER).getValue();
+        signer.sign(request);
+        assertEquals(1, request.getHeaders(OAuth.HTTP_AUTHORIZATION_HEADER).length);
+        assertNotEquals(first, request.getFirstHeader(OAuth.HTTP_AUTHORIZATION_HEADER).getValue());
+        assertTrue(first.startsWith("OAuth "));
+    }
+}
@@ -0,0 +1,115 @@
+package org.entitypedia.games.common.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.http.HttpEntity;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ObjectEntityTest {
+
+    private GamesCommonClient client;
+
+    @After
+    public void tearDown() throws Exception {
+        if (null != client) {
+            client.close();
+        }
+    }
+
+    private HttpEntity createEntity(int compressionThreshold, int streamingThreshold, Object object) throws IOException {
+        GamesCommonClientConfig config = new GamesCommonClientConfig();
+        config.setRequestCompressionThreshold(compressionThreshold);
+        config.setRequestStreamingThreshold(streamingThreshold);
+        client = new GamesCommonClient("http://localhost/", "key", "secret", config) {
+        };
+        return client.createObjectEntity(client.getObjectCodecs().writerFor(object), object);
+    }
+
+    private static String text(int length) {
+        char[] chars = new char[length];
+        Arrays.fill(chars, 'a');
+        return new String(chars);
+    }
+
+    private static byte[] content(HttpEntity entity) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+        byte[] bytes = out.toByteArray();
+        if (null != entity.getContentEncoding()) {
+            assertEquals("gzip", entity.getContentEncoding().getValue());
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                return GamesCommonClient.inputStreamToByteArray(in);
+            }
+        }
+        return bytes;
+    }
+
+    private static byte[] json(String text) {
+        return ("\"" + text + "\"").getBytes();
+    }
+
+    @Test
+    public void testBufferedBelowCompressionThreshold() throws Exception {
+        HttpEntity entity = createEntity(1000, 100, text(50));
+        assertFalse(entity.isChunked());
+        assertNull(entity.getContentEncoding());
+        assertArrayEquals(json(text(50)), content(entity));
+    }
+
+    @Test
+    public void testBufferedCompressed() throws Exception {
+        HttpEntity entity = createEntity(10, 100, text(50));
+        assertFalse(entity.isChunked());
+        assertArrayEquals(json(text(50)), content(entity));
+        assertEquals("gzip", entity.getContentEncoding().getValue());
+    }
+
+    @Test
+    public void testStreamedNotCompressedWhenThresholdAboveStreaming() throws Exception {
+        HttpEntity entity = createEntity(1000, 100, text(500));
+        assertTrue(entity.isChunked());
+        assertNull(entity.getContentEncoding());
+        assertArrayEquals(json(text(500)), content(entity));
+    }
+
+    @Test
+    public void testStreamedCompressed() throws Exception {
+        HttpEntity entity = createEntity(100, 100, text(500));
+        assertTrue(entity.isChunked());
+        assertEquals("gzip", entity.getContentEncoding().getValue());
+        assertArrayEquals(json(text(500)), content(entity));
+    }
+
+    @Test
+    public void testStreamedUncompressed() throws Exception {
+        HttpEntity entity = createEntity(-1, 100, text(500));
+        assertTrue(entity.isChunked());
+        assertNull(entity.getContentEncoding());
+        assertArrayEquals(json(text(500)), content(entity));
+    }
+
+    @Test
+    public void testToBytesOverflow() throws Exception {
+        ObjectWriter writer = new ObjectMapper().writer();
+        assertNull(ObjectEntity.toBytes(writer, text(200), 100));
+        assertArrayEquals(json(text(98)), ObjectEntity.toBytes(writer, text(98), 100));
+        assertNull(ObjectEntity.toBytes(writer, text(10), 0));
+    }
+}
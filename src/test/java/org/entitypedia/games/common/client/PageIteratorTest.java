@@ -0,0 +1,177 @@
+package org.entitypedia.games.common.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.entitypedia.games.common.exceptions.GameException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class PageIteratorTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Listing of items 0 to size - 1, remembering the pages fetched.
+     */
+    private static class Listing {
+
+        private final int size;
+        private final int firstPageNo;
+        private final List<Integer> fetched = new CopyOnWriteArrayList<>();
+
+        private Listing(int size, int firstPageNo) {
+            this.size = size;
+            this.firstPageNo = firstPageNo;
+        }
+
+        private List<Integer> fetch(int pageNo, int pageSize) {
+            fetched.add(pageNo);
+            List<Integer> page = new ArrayList<>();
+            for (int i = (pageNo - firstPageNo) * pageSize; i < Math.min(size, (pageNo - firstPageNo + 1) * pageSize); i++) {
+                page.add(i);
+            }
+            return page;
+        }
+
+        private PageIterator<Integer> iterate(final int pageSize, int prefetch, ExecutorService executor) {
+            return new PageIterator<>(pageNo -> fetch(pageNo, pageSize), pageSize, firstPageNo, prefetch, executor);
+        }
+    }
+
+    private static List<Integer> drain(PageIterator<Integer> iterator) {
+        List<Integer> result = new ArrayList<>();
+        while (iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    private static void assertItems(int size, List<Integer> items) {
+        assertEquals(size, items.size());
+        for (int i = 0; i < size; i++) {
+            assertEquals(Integer.valueOf(i), items.get(i));
+        }
+    }
+
+    @Test
+    public void testStopsAfterShortPage() {
+        Listing listing = new Listing(25, 0);
+        assertItems(25, drain(listing.iterate(10, 0, null)));
+        assertEquals(3, listing.fetched.size());
+    }
+
+    @Test
+    public void testStopsAfterEmptyPage() {
+        Listing listing = new Listing(20, 1);
+        PageIterator<Integer> iterator = listing.iterate(10, 0, null);
+        assertItems(20, drain(iterator));
+        assertEquals(3, listing.fetched.size());
+        assertEquals(Integer.valueOf(1), listing.fetched.get(0));
+        assertFalse(iterator.hasNext());
+        try {
+            iterator.next();
+            fail("Iterator should be exhausted");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+        assertEquals(3, listing.fetched.size());
+    }
+
+    @Test
+    public void testEmptyListing() {
+        Listing listing = new Listing(0, 0);
+        assertFalse(listing.iterate(10, 2, executor).hasNext());
+        assertTrue(1 <= listing.fetched.size());
+    }
+
+    @Test
+    public void testNullPageEnds() {
+        PageIterator<Integer> iterator = new PageIterator<>(pageNo -> null, 10, 0, 0, null);
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testPrefetchKeepsOrder() {
+        Listing listing = new Listing(1005, 0);
+        assertItems(1005, drain(listing.iterate(10, 3, executor)));
+        // pages up to the short one, plus at most the prefetched ones beyond it
+        assertTrue(listing.fetched.size() >= 101);
+        assertTrue(listing.fetched.size() <= 101 + 3);
+    }
+
+    @Test
+    public void testCloseStopsFetching() {
+        Listing listing = new Listing(1000, 0);
+        PageIterator<Integer> iterator = listing.iterate(10, 2, executor);
+        assertEquals(Integer.valueOf(0), iterator.next());
+        iterator.close();
+        assertFalse(iterator.hasNext());
+        assertTrue(listing.fetched.size() <= 3);
+    }
+
+    @Test
+    public void testFailurePropagates() {
+        PageIterator<Integer> iterator = new PageIterator<>(pageNo -> {
+            if (1 == pageNo) {
+                throw new GameException("page " + pageNo);
+            }
+            List<Integer> page = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                page.add(i);
+            }
+            return page;
+        }, 10, 0, 1, executor);
+        for (int i = 0; i < 10; i++) {
+            iterator.next();
+        }
+        try {
+            iterator.hasNext();
+            fail("Failure of page fetch should propagate");
+        } catch (GameException e) {
+            assertEquals("page 1", e.getMessage());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testIteratePagesEncodesFilterAndOrder() throws Exception {
+        try (LocalServer server = LocalServer.json(200, "[]")) {
+            GamesCommonClient client = new GamesCommonClient(server.getUrl(), "key", "secret") {
+            };
+            try {
+                PageIterator<Integer> iterator = client.iteratePages(server.getUrl() + "words", "a&b=c d", "+name",
+                        new TypeReference<List<Integer>>() {
+                        }, 10, 0);
+                assertFalse(iterator.hasNext());
+            } finally {
+                client.close();
+            }
+            assertEquals("/words?pageSize=10&pageNo=0&filter=a%26b%3Dc+d&order=%2Bname",
+                    server.getRequests().get(0).getRequestLine().getUri());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPageSize() {
+        new PageIterator<>(pageNo -> null, 0, 0, 0, null);
+    }
+}
@@ -0,0 +1,31 @@
+package org.entitypedia.games.common.client;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class RequestEventTest {
+
+    @Test
+    public void testConcurrentByteCounts() throws Exception {
+        final RequestEvent event = new RequestEvent("GET", "words", "http://localhost/words");
+        Runnable count = () -> {
+            for (int i = 0; i < 100000; i++) {
+                event.addBytesReceived(1);
+                event.addBytesSent(2);
+            }
+        };
+        Thread[] threads = {new Thread(count), new Thread(count), new Thread(count)};
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(300000, event.getBytesReceived());
+        assertEquals(600000, event.getBytesSent());
+    }
+}
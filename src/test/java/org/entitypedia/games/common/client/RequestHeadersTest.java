@@ -0,0 +1,124 @@
+package org.entitypedia.games.common.client;
+
+import org.apache.http.HttpRequest;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that retried and hedged requests carry the same headers as the first attempt.
+ *
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class RequestHeadersTest {
+
+    private static final List<String> HEADERS = Arrays.asList("Accept", "Accept-Charset", "Authorization");
+
+    private LocalServer server;
+    private GamesCommonClient client;
+
+    @After
+    public void tearDown() throws Exception {
+        if (null != client) {
+            client.close();
+        }
+        if (null != server) {
+            server.close();
+        }
+    }
+
+    /**
+     * Starts a server which fails the first requests with 503 and delays the first request after them.
+     */
+    private void start(final int failures, final long delay, GamesCommonClientConfig config) throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        server = new LocalServer((request, response, context) -> {
+            int i = count.getAndIncrement();
+            if (failures == i && 0 < delay) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (i < failures) {
+                response.setStatusCode(503);
+            } else {
+                response.setEntity(new StringEntity("42", ContentType.APPLICATION_JSON));
+            }
+        });
+        client = new GamesCommonClient(server.getUrl(), "key", "secret", "token", "token secret", config) {
+            @Override
+            protected long getHedgeDelay(HttpUriRequest request) {
+                return config.getHedgeRequests() ? 50 : -1;
+            }
+        };
+        client.setSignConnection(true);
+        client.setResponseFormat(WireFormat.SMILE);
+    }
+
+    private static GamesCommonClientConfig retries(int maxRetries) {
+        GamesCommonClientConfig config = new GamesCommonClientConfig();
+        config.setMaxRetries(maxRetries);
+        config.setRetryBackoff(0);
+        return config;
+    }
+
+    private void assertSameHeaders(int attempts) {
+        List<HttpRequest> requests = server.getRequests();
+        assertEquals(attempts, requests.size());
+        HttpRequest first = requests.get(0);
+        for (HttpRequest request : requests) {
+            for (String name : HEADERS) {
+                assertEquals(name, 1, request.getHeaders(name).length);
+                if (!"Authorization".equals(name)) {
+                    assertEquals(name, first.getFirstHeader(name).getValue(), request.getFirstHeader(name).getValue());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNoRetriesByDefault() throws Exception {
+        start(1, 0, new GamesCommonClientConfig());
+        try {
+            client.doSimpleGet(server.getUrl() + "answer", GamesCommonClient.INTEGER_TYPE_REFERENCE);
+        } catch (RuntimeException e) {
+            // expected
+        }
+        assertEquals(1, server.getRequests().size());
+    }
+
+    @Test
+    public void testRetry() throws Exception {
+        start(2, 0, retries(2));
+        assertEquals(Integer.valueOf(42), client.doSimpleGet(server.getUrl() + "answer", GamesCommonClient.INTEGER_TYPE_REFERENCE));
+        assertSameHeaders(3);
+    }
+
+    @Test
+    public void testAsyncRetry() throws Exception {
+        start(2, 0, retries(2));
+        assertEquals(Integer.valueOf(42), client.doSimpleGetAsync(server.getUrl() + "answer", GamesCommonClient.INTEGER_TYPE_REFERENCE)
+                .get(10, TimeUnit.SECONDS));
+        assertSameHeaders(3);
+    }
+
+    @Test
+    public void testHedgedRetry() throws Exception {
+        GamesCommonClientConfig config = retries(1);
+        config.setHedgeRequests(true);
+        start(1, 500, config);
+        assertEquals(Integer.valueOf(42), client.doSimpleGet(server.getUrl() + "answer", GamesCommonClient.INTEGER_TYPE_REFERENCE));
+        assertSameHeaders(3);
+    }
+}
@@ -0,0 +1,50 @@
+package org.entitypedia.games.common.client;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ResponseCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static ResponseCache.Entry entry(String body) {
+        return new ResponseCache.Entry(null, null, WireFormat.JSON, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testStoreWrittenInBackground() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("responses.log");
+        try (DiskResponseStore store = new DiskResponseStore(file, 1 << 20)) {
+            // one entry in memory, others are loaded from the store
+            ResponseCache cache = new ResponseCache(1, 1 << 20, 0, store);
+            cache.put("a", entry("[1]"));
+            cache.put("b", entry("[2]"));
+            cache.put("c", entry("[3]"));
+            assertNotNull(cache.get("a"));
+            cache.invalidate("b");
+            assertNull(cache.get("b"));
+            cache.flush();
+            assertEquals(2, store.size());
+            assertNull(store.get("b"));
+
+            cache.clear();
+            assertNull(cache.get("a"));
+            cache.put("d", entry("[4]"));
+            cache.flush();
+            assertEquals(1, store.size());
+            assertNotNull(store.get("d"));
+        }
+    }
+}
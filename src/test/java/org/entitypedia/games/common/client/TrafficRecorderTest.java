@@ -0,0 +1,89 @@
+package org.entitypedia.games.common.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TrafficRecorderTest {
+
+    private static final TypeReference<List<Integer>> NUMBERS = new TypeReference<List<Integer>>() {
+    };
+    private static final String BODY = "[1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,16,17,18,19,20,21,22,23,24,25,26,27,28,29,30]";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private byte[] gzipped;
+    private LocalServer server;
+    private GamesCommonClient client;
+    private final LinkedBlockingQueue<RequestEvent> events = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setUp() throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(BODY.getBytes(StandardCharsets.UTF_8));
+        }
+        gzipped = buffer.toByteArray();
+        server = new LocalServer((request, response, context) -> {
+            ByteArrayEntity entity = new ByteArrayEntity(gzipped, ContentType.APPLICATION_JSON);
+            entity.setContentEncoding("gzip");
+            response.setEntity(entity);
+        });
+        client = new GamesCommonClient(server.getUrl(), "key", "secret") {
+            @Override
+            protected void finishEvent(RequestEvent event) {
+                super.finishEvent(event);
+                events.add(event);
+            }
+        };
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void testWireBytesCountedWhileRecording() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("traffic.rec");
+        try (TrafficRecorder recorder = new TrafficRecorder(file)) {
+            client.setTrafficRecorder(recorder);
+            List<Integer> sync = client.doSimpleGet(server.getUrl() + "numbers", NUMBERS);
+            assertEquals(30, sync.size());
+            assertEquals(gzipped.length, events.poll(10, TimeUnit.SECONDS).getBytesReceived());
+
+            List<Integer> async = client.doSimpleGetAsync(server.getUrl() + "numbers", NUMBERS)
+                    .get(10, TimeUnit.SECONDS);
+            assertEquals(sync, async);
+            assertEquals(gzipped.length, events.poll(10, TimeUnit.SECONDS).getBytesReceived());
+        }
+
+        List<RecordedExchange> recording = TrafficRecorder.load(file);
+        assertEquals(2, recording.size());
+        for (RecordedExchange exchange : recording) {
+            assertEquals("numbers", exchange.getUrl());
+            assertArrayEquals(BODY.getBytes(StandardCharsets.UTF_8), exchange.getResponseBody());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.entitypedia.games.common.client;
+
+import org.junit.Test;
+
+import java.net.URLEncoder;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author <a href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class UrlBuilderTest {
+
+    private static final String[] STRINGS = {
+            "", "word", "two words", "a+b=c&d", "50%", "~tilde", "-_.*", "!'()", "/path/?q#frag",
+            "naïve café", "Ёлка", "日本語", "emoji 😀 pair", "mixed Ж and 🎉 and ascii",
+            "\t\r\n", "\u007F\u0080ÿ", "�", "name=\"quoted\"", "semi;colon,comma:colon@at$"
+    };
+
+    private static String urlEncode(String string) throws Exception {
+        return URLEncoder.encode(string, "UTF-8");
+    }
+
+    @Test
+    public void testEncodeMatchesUrlEncoder() throws Exception {
+        for (String string : STRINGS) {
+            assertEquals(string, urlEncode(string), UrlBuilder.encode(string));
+        }
+    }
+
+    @Test
+    public void testEncodeRandomMatchesUrlEncoder() throws Exception {
+        Random random = new Random(42);
+        for (int n = 0; n < 10000; n++) {
+            StringBuilder string = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int i = 0; i < length; i++) {
+                int codePoint;
+                switch (random.nextInt(4)) {
+                    case 0:
+                        codePoint = random.nextInt(128);
+                        break;
+                    case 1:
+                        codePoint = 128 + random.nextInt(0x800 - 128);
+                        break;
+                    case 2:
+                        codePoint = 0x800 + random.nextInt(0xD800 - 0x800);
+                        break;
+                    default:
+                        codePoint = 0x10000 + random.nextInt(0x10FFFF - 0x10000);
+                        break;
+                }
+                string.appendCodePoint(codePoint);
+            }
+            assertEquals(string.toString(), urlEncode(string.toString()), UrlBuilder.encode(string.toString()));
+        }
+    }
+
+    @Test
+    public void testEncodeReturnsSameString() {
+        String string = "nothing-to_encode.here*";
+        assertSame(string, UrlBuilder.encode(string));
+    }
+
+    @Test
+    public void testPathSegmentEncodesSpace() {
+        StringBuilder target = new StringBuilder();
+        UrlBuilder.encode(target, "two words+", true);
+        assertEquals("two%20words%2B", target.toString());
+    }
+
+    @Test
+    public void testParams() throws Exception {
+        String url = new UrlBuilder("http://localhost/api/words")
+                .param("q", "naïve café")
+                .param("skipped", null)
+                .param("id", 12345678901L)
+                .param("n", 7)
+                .param("flag", Boolean.TRUE)
+                .rawParam("raw", "a%20b")
+                .toString();
+        assertEquals("http://localhost/api/words?q=" + urlEncode("naïve café") + "&id=12345678901&n=7&flag=true&raw=a%20b", url);
+    }
+
+    @Test
+    public void testPageFilterAndOrderEncoded() throws Exception {
+        String filter = "name like 'café%' & score > 5";
+        String order = "+name,-score";
+        assertEquals("http://localhost/api/words?pageSize=10&pageNo=0&filter=" + urlEncode(filter) + "&order=" + urlEncode(order),
+                GamesCommonClient.addPageSizeAndNoAndFilterAndOrder("http://localhost/api/words", 10, 0, filter, order));
+        assertEquals("http://localhost/api/words?pageNo=1&filter=" + urlEncode(filter),
+                GamesCommonClient.addPageSizeAndNoAndFilter("http://localhost/api/words", null, 1, filter));
+        assertEquals("http://localhost/api/words?pageSize=5",
+                GamesCommonClient.addPageSizeAndNoAndFilterAndOrder("http://localhost/api/words", 5, null, null, null));
+    }
+
+    @Test
+    public void testParamsAfterQuery() {
+        assertEquals("http://localhost/api/words?sort=name&pageSize=10&pageNo=2",
+                new UrlBuilder("http://localhost/api/words?sort=name").page(10, 2).toString());
+        assertEquals("http://localhost/api/words?pageNo=0",
+                new UrlBuilder("http://localhost/api/words").page(null, 0).toString());
+    }
+}